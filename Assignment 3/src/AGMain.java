@@ -1,28 +1,56 @@
-import models.Process;
-import models.SchedulerResult;
-import schedulers.AGScheduler;
-import utils.InputHandler;
-import utils.OutputFormatter;
-import java.util.List;
-
-public class AGMain {
-    public static void main(String[] args) {
-        InputHandler input = new InputHandler();
-
-        System.out.println("╔═══════════════════════════════════════════════════════╗");
-        System.out.println("║            AG CPU SCHEDULER - Assignment #3          ║");
-        System.out.println("╚═══════════════════════════════════════════════════════╝");
-        System.out.println();
-
-        int numProcesses = input.getNumberOfProcesses();
-        // int rrQuantum = input.getRoundRobinQuantum();
-        // int contextSwitchTime = input.getContextSwitchTime();
-        List<Process> processes = input.getProcesses(numProcesses, true);
-
-        AGScheduler ag = new AGScheduler();
-        SchedulerResult agResult = ag.schedule(processes, 0, 4);
-        OutputFormatter.printResult(agResult);
-
-        input.close();
-    }
-}
+import models.ProcessTable;
+import models.SchedulerResult;
+import schedulers.AGScheduler;
+import utils.BatchInput;
+import utils.InputHandler;
+import utils.OutputFormatter;
+import java.io.IOException;
+
+public class AGMain {
+    /**
+     * Asks for the input interactively. With "--batch [file]" it reads the same
+     * values in the same order from the file (or stdin) without prompting.
+     * "--output text|csv|jsonl|summary" picks the result format (text by default).
+     */
+    public static void main(String[] args) throws IOException {
+        ProcessTable processes;
+
+        boolean batch = false;
+        String batchFile = null;
+        OutputFormatter.Mode mode = OutputFormatter.Mode.TEXT;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch")) {
+                batch = true;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) batchFile = args[++i];
+            } else if (args[i].equals("--output") && i + 1 < args.length) {
+                mode = OutputFormatter.Mode.parse(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+
+        if (batch) {
+            try (BatchInput input = BatchInput.open(batchFile)) {
+                int numProcesses = input.nextInt("number of processes");
+                processes = input.readProcesses(numProcesses, true);
+            }
+        } else {
+            InputHandler input = new InputHandler();
+
+            System.out.println("╔═══════════════════════════════════════════════════════╗");
+            System.out.println("║            AG CPU SCHEDULER - Assignment #3          ║");
+            System.out.println("╚═══════════════════════════════════════════════════════╝");
+            System.out.println();
+
+            int numProcesses = input.getNumberOfProcesses();
+            // int rrQuantum = input.getRoundRobinQuantum();
+            // int contextSwitchTime = input.getContextSwitchTime();
+            processes = ProcessTable.from(input.getProcesses(numProcesses, true));
+            input.close();
+        }
+
+        AGScheduler ag = new AGScheduler();
+        SchedulerResult agResult = ag.schedule(processes, 0, 4);
+        new OutputFormatter(mode).print(agResult);
+    }
+}
@@ -0,0 +1,125 @@
+import models.Process;
+import models.ProcessTable;
+import models.SchedulerResult;
+import schedulers.*;
+import utils.InputHandler;
+import utils.OutputFormatter;
+import utils.TraceFile;
+import utils.WorkloadGenerator;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs SJF, Round Robin, Priority and AG at the same time, each on its own thread,
+ * over one shared ProcessTable, and prints them side by side. The table is
+ * immutable and no scheduler changes its input, so nothing is copied per scheduler.
+ *
+ * With no arguments it asks for input like Main (with a quantum per process, for AG).
+ * With --generate N [--seed S] [--quantum Q] [--cs C] [--aging A] it compares the
+ * schedulers on a generated trace instead, and with --trace FILE on a binary
+ * TraceFile (taking quantum, context switch and aging from its header).
+ *
+ * --cores N [--balance push|pull|steal] (after the other options, or with --trace)
+ * runs the multi-core versions of the four schedulers on N cores instead.
+ */
+public class CompareMain {
+
+    public static void main(String[] args) throws Exception {
+        ProcessTable table;
+        int rrQuantum = 2, contextSwitchTime = 0, agingInterval = 5;
+        int cores = 1;
+        MultiCoreScheduler.Balancing balancing = MultiCoreScheduler.Balancing.STEAL;
+
+        // Core options are taken off the end so the rest parse as before
+        int end = args.length;
+        while (end >= 2 && (args[end - 2].equals("--cores") || args[end - 2].equals("--balance"))) {
+            if (args[end - 2].equals("--cores")) cores = Integer.parseInt(args[end - 1]);
+            else balancing = MultiCoreScheduler.Balancing.parse(args[end - 1]);
+            end -= 2;
+        }
+        args = Arrays.copyOf(args, end);
+
+        if (args.length == 0) {
+            InputHandler input = new InputHandler();
+            int numProcesses = input.getNumberOfProcesses();
+            rrQuantum = input.getRoundRobinQuantum();
+            contextSwitchTime = input.getContextSwitchTime();
+            agingInterval = input.getAgingInterval();
+            List<Process> processes = input.getProcesses(numProcesses, true);
+            input.close();
+            table = ProcessTable.from(processes);
+        } else if (args.length == 2 && args[0].equals("--trace")) {
+            TraceFile trace = TraceFile.read(Path.of(args[1]));
+            table = trace.table();
+            rrQuantum = trace.rrQuantum();
+            contextSwitchTime = trace.contextSwitchTime();
+            agingInterval = trace.agingInterval();
+        } else {
+            int count = 0;
+            long seed = 1;
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                int value = Integer.parseInt(args[i + 1]);
+                switch (args[i]) {
+                    case "--generate" -> count = value;
+                    case "--seed" -> seed = value;
+                    case "--quantum" -> rrQuantum = value;
+                    case "--cs" -> contextSwitchTime = value;
+                    case "--aging" -> agingInterval = value;
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            table = new WorkloadGenerator(seed).toTable(count);
+        }
+        table.arrivalOrder(); // Sort once before the schedulers share it
+
+        if (rrQuantum < 1) {
+            throw new IllegalArgumentException("Round Robin quantum must be at least 1, got " + rrQuantum);
+        }
+        // AG never finishes a process whose quantum is below 2 (e.g. traces made from non-AG test cases)
+        boolean runAG = true;
+        for (int row = 0; row < table.size() && runAG; row++) {
+            runAG = table.getQuantum(row) >= 2;
+        }
+        if (!runAG) System.out.println("Skipping AG: some processes have a quantum below 2");
+
+        List<MultiCoreScheduler.Policy> policies = new ArrayList<>(List.of(
+                MultiCoreScheduler.Policy.SJF, MultiCoreScheduler.Policy.RR, MultiCoreScheduler.Policy.PRIORITY));
+        if (runAG) policies.add(MultiCoreScheduler.Policy.AG);
+
+        List<Callable<SchedulerResult>> runs = new ArrayList<>();
+        for (MultiCoreScheduler.Policy policy : policies) {
+            Scheduler scheduler = cores > 1 ? new MultiCoreScheduler(policy, cores, balancing) : singleCore(policy);
+            int parameter = policy == MultiCoreScheduler.Policy.PRIORITY ? agingInterval : rrQuantum;
+            int cs = contextSwitchTime;
+            runs.add(() -> scheduler.schedule(table, cs, parameter));
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(runs.size());
+        List<SchedulerResult> results = new ArrayList<>();
+        try {
+            for (Future<SchedulerResult> run : pool.invokeAll(runs)) {
+                results.add(run.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        OutputFormatter.printComparison(results, table.size() <= 100);
+        System.out.printf("%nCompared %d processes in %.2f s%n", table.size(), (System.nanoTime() - start) / 1e9);
+    }
+
+    private static Scheduler singleCore(MultiCoreScheduler.Policy policy) {
+        return switch (policy) {
+            case SJF -> new SJFPreemptive();
+            case RR -> new RoundRobin();
+            case PRIORITY -> new PriorityScheduler();
+            case AG -> new AGScheduler();
+        };
+    }
+}
@@ -1,40 +1,75 @@
-import models.Process;
+import models.ProcessTable;
 import models.SchedulerResult;
 import schedulers.*;
+import utils.BatchInput;
 import utils.InputHandler;
 import utils.OutputFormatter;
-import java.util.List;
+import java.io.IOException;
 
 public class Main {
     
-    public static void main(String[] args) {
-        InputHandler input = new InputHandler();
-        
-        System.out.println("╔═══════════════════════════════════════════════════════╗");
-        System.out.println("║       CPU SCHEDULER SIMULATOR - Assignment #3        ║");
-        System.out.println("╚═══════════════════════════════════════════════════════╝");
-        System.out.println();
-        
-        int numProcesses = input.getNumberOfProcesses();
-        int rrQuantum = input.getRoundRobinQuantum();
-        int contextSwitchTime = input.getContextSwitchTime();
-        int agingInterval = input.getAgingInterval();
-        List<Process> processes = input.getProcesses(numProcesses, false);
+    /**
+     * Asks for the input interactively. With "--batch [file]" it reads the same
+     * values in the same order from the file (or stdin) without prompting.
+     * "--output text|csv|jsonl|summary" picks the result format (text by default).
+     */
+    public static void main(String[] args) throws IOException {
+        int rrQuantum, contextSwitchTime, agingInterval;
+        ProcessTable processes;
+
+        boolean batch = false;
+        String batchFile = null;
+        OutputFormatter.Mode mode = OutputFormatter.Mode.TEXT;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch")) {
+                batch = true;
+                if (i + 1 < args.length && !args[i + 1].startsWith("--")) batchFile = args[++i];
+            } else if (args[i].equals("--output") && i + 1 < args.length) {
+                mode = OutputFormatter.Mode.parse(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+
+        if (batch) {
+            try (BatchInput input = BatchInput.open(batchFile)) {
+                int numProcesses = input.nextInt("number of processes");
+                rrQuantum = input.nextInt("Round Robin time quantum");
+                contextSwitchTime = input.nextInt("context switching time");
+                agingInterval = input.nextInt("priority aging interval");
+                processes = input.readProcesses(numProcesses, false);
+            }
+        } else {
+            InputHandler input = new InputHandler();
+
+            System.out.println("╔═══════════════════════════════════════════════════════╗");
+            System.out.println("║       CPU SCHEDULER SIMULATOR - Assignment #3        ║");
+            System.out.println("╚═══════════════════════════════════════════════════════╝");
+            System.out.println();
+
+            int numProcesses = input.getNumberOfProcesses();
+            rrQuantum = input.getRoundRobinQuantum();
+            contextSwitchTime = input.getContextSwitchTime();
+            agingInterval = input.getAgingInterval();
+            processes = ProcessTable.from(input.getProcesses(numProcesses, false));
+            input.close();
+        }
         
-        System.out.println("\n=== Running All Schedulers ===\n");
+        if (mode == OutputFormatter.Mode.TEXT) {
+            System.out.println("\n=== Running All Schedulers ===\n");
+        }
+        OutputFormatter output = new OutputFormatter(mode);
         
         SJFPreemptive sjf = new SJFPreemptive();
         SchedulerResult sjfResult = sjf.schedule(processes, contextSwitchTime, rrQuantum);
-        OutputFormatter.printResult(sjfResult);
+        output.print(sjfResult);
         
         RoundRobin rr = new RoundRobin();
         SchedulerResult rrResult = rr.schedule(processes, contextSwitchTime, rrQuantum);
-        OutputFormatter.printResult(rrResult);
+        output.print(rrResult);
         
         PriorityScheduler priority = new PriorityScheduler();
         SchedulerResult priorityResult = priority.schedule(processes, contextSwitchTime, agingInterval);
-        OutputFormatter.printResult(priorityResult);
-       
-        input.close();
+        output.print(priorityResult);
     }
 }
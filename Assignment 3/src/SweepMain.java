@@ -0,0 +1,163 @@
+import models.ProcessTable;
+import models.SchedulerResult.ProcessResult;
+import schedulers.*;
+import utils.BatchInput;
+import utils.TraceFile;
+import utils.WorkloadGenerator;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs SJF, Round Robin and Priority over a grid of RR quantum, context switch
+ * time and aging interval values on one trace, in parallel, and prints a CSV line
+ * of average waiting and turnaround times for every grid point.
+ *
+ * Each scheduler only depends on some of the parameters (SJF on the context switch
+ * time, RR also on the quantum, Priority also on the aging interval), so each
+ * distinct run is simulated once and shared by every grid point that needs it.
+ *
+ * Usage:
+ *   SweepMain --quantum 1:50 --cs 0:19 --aging 1:20 --trace input.txt [--out sweep.csv] [--threads N]
+ *   SweepMain --quantum 1:50 --cs 0:19 --aging 1:20 --generate 100000 [--seed 1] ...
+ *
+ * Ranges are "value", "from:to" or "from:to:step" (inclusive). A trace file is
+ * either a binary TraceFile or text in the format Main reads (see
+ * WorkloadGenerator.writeMainInput); header values in either are ignored.
+ */
+public class SweepMain {
+
+    public static void main(String[] args) throws IOException {
+        int[] quantums = {2}, switches = {0}, agings = {5};
+        Path trace = null, out = null;
+        int generate = 0;
+        long seed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            if (value == null) usage("Missing value for " + args[i]);
+            switch (args[i++]) {
+                case "--quantum" -> quantums = range(value);
+                case "--cs" -> switches = range(value);
+                case "--aging" -> agings = range(value);
+                case "--trace" -> trace = Path.of(value);
+                case "--generate" -> generate = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--out" -> out = Path.of(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                default -> usage("Unknown option " + args[i - 1]);
+            }
+        }
+        if ((trace == null) == (generate == 0)) usage("Give exactly one of --trace or --generate");
+        // Ranges ascend, so their first values are the smallest
+        if (quantums[0] < 1) usage("Round Robin quantum must be at least 1, got " + quantums[0]);
+        if (switches[0] < 0) usage("Context switch time must not be negative, got " + switches[0]);
+        if (agings[0] < 0) usage("Aging interval must not be negative, got " + agings[0]);
+
+        ProcessTable table = trace != null ? readTrace(trace) : new WorkloadGenerator(seed).toTable(generate);
+        table.arrivalOrder(); // Sort once up front instead of racing to do it in every task
+
+        // Distinct runs only: sjf[cs], rr[quantum][cs], priority[aging][cs]
+        double[][] sjf = new double[switches.length][];
+        double[][][] rr = new double[quantums.length][switches.length][];
+        double[][][] priority = new double[agings.length][switches.length][];
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int c = 0; c < switches.length; c++) {
+            int cs = switches[c], ci = c;
+            tasks.add(() -> { sjf[ci] = averages(new SJFPreemptive(), table, cs, 0); return null; });
+            for (int q = 0; q < quantums.length; q++) {
+                int quantum = quantums[q], qi = q;
+                tasks.add(() -> { rr[qi][ci] = averages(new RoundRobin(), table, cs, quantum); return null; });
+            }
+            for (int a = 0; a < agings.length; a++) {
+                int aging = agings[a], ai = a;
+                tasks.add(() -> { priority[ai][ci] = averages(new PriorityScheduler(), table, cs, aging); return null; });
+            }
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invokeAll(tasks).forEach(task -> {
+                try {
+                    task.get();
+                } catch (Exception e) {
+                    throw new RuntimeException("Simulation failed", e);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        System.err.printf("%d processes, %d grid points, %d simulations on %d threads in %.1f s%n",
+                table.size(), quantums.length * switches.length * agings.length, tasks.size(), threads,
+                (System.nanoTime() - start) / 1e9);
+
+        try (PrintStream csv = out == null ? new PrintStream(System.out, false)
+                : new PrintStream(Files.newOutputStream(out), false)) {
+            csv.println("rrQuantum,contextSwitchTime,agingInterval,"
+                    + "sjfAvgWaiting,sjfAvgTurnaround,rrAvgWaiting,rrAvgTurnaround,"
+                    + "priorityAvgWaiting,priorityAvgTurnaround");
+            for (int q = 0; q < quantums.length; q++) {
+                for (int c = 0; c < switches.length; c++) {
+                    for (int a = 0; a < agings.length; a++) {
+                        csv.printf("%d,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f%n",
+                                quantums[q], switches[c], agings[a],
+                                sjf[c][0], sjf[c][1], rr[q][c][0], rr[q][c][1],
+                                priority[a][c][0], priority[a][c][1]);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Average waiting and turnaround time of one run, without building a SchedulerResult. */
+    private static double[] averages(StreamingScheduler scheduler, ProcessTable table, int cs, int parameter) {
+        long[] totals = new long[2];
+        scheduler.stream(table, cs, parameter, new SchedulerEventSink() {
+            @Override
+            public void onCompletion(int time, long id, ProcessResult result) {
+                totals[0] += result.waitingTime;
+                totals[1] += result.turnaroundTime;
+            }
+        });
+        int n = Math.max(1, table.size());
+        return new double[] {(double) totals[0] / n, (double) totals[1] / n};
+    }
+
+    private static int[] range(String text) {
+        String[] parts = text.split(":");
+        int from = Integer.parseInt(parts[0]);
+        int to = parts.length > 1 ? Integer.parseInt(parts[1]) : from;
+        int step = parts.length > 2 ? Integer.parseInt(parts[2]) : 1;
+        if (step <= 0 || to < from) usage("Bad range " + text);
+        int[] values = new int[(to - from) / step + 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = from + i * step;
+        }
+        return values;
+    }
+
+    // Main's input: count, rrQuantum, contextSwitchTime, agingInterval, then name arrival burst priority
+    private static ProcessTable readTrace(Path file) throws IOException {
+        if (TraceFile.isTraceFile(file)) return TraceFile.read(file).table();
+        try (BatchInput input = BatchInput.open(file.toString())) {
+            int count = input.nextInt("number of processes");
+            for (int i = 0; i < 3; i++) input.nextInt("header value");
+            return input.readProcesses(count, false);
+        }
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: SweepMain --quantum R --cs R --aging R (--trace FILE | --generate N [--seed S])"
+                + " [--out FILE] [--threads N]   (R = value | from:to | from:to:step)");
+        System.exit(2);
+    }
+}
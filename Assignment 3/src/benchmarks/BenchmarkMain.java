@@ -0,0 +1,27 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs SchedulerBenchmark with the GC profiler, which adds allocation rate
+ * (gc.alloc.rate.norm is bytes per schedule() call) next to the throughput.
+ *
+ * The first argument, if given, replaces the include pattern (a JMH regex over
+ * benchmark names). The whole parameter matrix runs.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : SchedulerBenchmark.class.getSimpleName();
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import models.ProcessTable;
+import models.SchedulerResult;
+import schedulers.*;
+import utils.WorkloadGenerator;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of every scheduler on generated workloads.
+ *
+ * Each trial builds one ProcessTable with WorkloadGenerator from a fixed seed, so runs are comparable
+ * across commits. The table is shared by all invocations (schedulers never modify
+ * it); only the scheduling itself is measured. Run it through BenchmarkMain to get
+ * the allocation rate from the GC profiler as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SchedulerBenchmark {
+
+    @Param({"SJF", "RR", "Priority", "AG", "MLFQ", "CFS", "Stride"})
+    public String scheduler;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int processes;
+
+    /**
+     * light     - Poisson arrivals, CPU about half busy, exponential bursts
+     * saturated - Poisson arrivals, CPU about 90% busy, exponential bursts
+     * heavyTail - moderate load, Pareto bursts (a few very long jobs)
+     * bursty    - clusters of about 50 processes arriving together
+     */
+    @Param({"light", "saturated", "heavyTail", "bursty"})
+    public String workload;
+
+    /** RR quantum (MLFQ top-level quantum, CFS minimum granularity), or the aging interval for Priority. */
+    @Param({"2", "8"})
+    public int parameter;
+
+    @Param({"1"})
+    public int contextSwitchTime;
+
+    private static final long SEED = 42;
+
+    private ProcessTable table;
+    private Scheduler engine;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        table = generate(workload, processes, SEED);
+        engine = switch (scheduler) {
+            case "SJF" -> new SJFPreemptive();
+            case "RR" -> new RoundRobin();
+            case "Priority" -> new PriorityScheduler();
+            case "AG" -> new AGScheduler();
+            case "MLFQ" -> new MLFQScheduler();
+            case "CFS" -> new CFSScheduler();
+            case "Stride" -> new StrideScheduler();
+            default -> throw new IllegalArgumentException("Unknown scheduler: " + scheduler);
+        };
+    }
+
+    @Benchmark
+    public SchedulerResult schedule() {
+        return engine.schedule(table, contextSwitchTime, parameter);
+    }
+
+    static ProcessTable generate(String workload, int n, long seed) {
+        WorkloadGenerator generator = new WorkloadGenerator(seed);
+        switch (workload) {
+            case "light" -> generator.poissonArrivals(16).exponentialBursts(8);
+            case "saturated" -> generator.poissonArrivals(9).exponentialBursts(8);
+            case "heavyTail" -> generator.poissonArrivals(12).paretoBursts(8, 1.5).maxBurst(10_000);
+            case "bursty" -> generator.burstyArrivals(12, 50).exponentialBursts(8);
+            default -> throw new IllegalArgumentException("Unknown workload: " + workload);
+        }
+        return generator.toTable(n);
+    }
+}
@@ -0,0 +1,139 @@
+package models;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of non-negative int latencies, for percentiles over runs of
+ * any length without keeping the values.
+ *
+ * Values below 128 get a bucket each and are exact. Above that, every power of two
+ * is split into 64 buckets, so a reported percentile is at most 1/64 (about 1.6%)
+ * above the true value. The whole int range fits in 1664 counters (13 KB), however
+ * many values are recorded. Count, total, min and max are kept exactly.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int EXACT = 1 << SUB_BITS;   // Values below this have their own bucket
+    private static final int HALF = EXACT >> 1;       // Buckets per power of two above that
+    private static final int BUCKETS = (Integer.SIZE - 1 - SUB_BITS) * HALF + EXACT;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private int min = Integer.MAX_VALUE;
+    private int max = 0;
+
+    public void record(int value) {
+        if (value < 0) throw new IllegalArgumentException("Negative latency " + value);
+        counts[bucketOf(value)]++;
+        count++;
+        total += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /** Adds every value recorded in {@code other}. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /** Writes the histogram compactly: only the buckets that hold something. */
+    public void writeTo(DataOutput out) throws IOException {
+        int used = 0;
+        for (long c : counts) if (c != 0) used++;
+        out.writeInt(used);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] == 0) continue;
+            out.writeShort(i);
+            out.writeLong(counts[i]);
+        }
+        out.writeLong(count);
+        out.writeLong(total);
+        out.writeInt(min);
+        out.writeInt(max);
+    }
+
+    /** Replaces the contents with a histogram written by writeTo(). */
+    public void readFrom(DataInput in) throws IOException {
+        Arrays.fill(counts, 0);
+        for (int used = in.readInt(); used > 0; used--) {
+            int bucket = in.readShort();
+            counts[bucket] = in.readLong();
+        }
+        count = in.readLong();
+        total = in.readLong();
+        min = in.readInt();
+        max = in.readInt();
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    public int min() {
+        return count == 0 ? 0 : min;
+    }
+
+    public int max() {
+        return max;
+    }
+
+    /**
+     * Smallest recorded value that at least {@code percent}% of the values are at or
+     * below, rounded up to the end of its bucket (never above max). 0 when empty.
+     */
+    public int percentile(double percent) {
+        if (percent < 0 || percent > 100) throw new IllegalArgumentException("Percentile out of range: " + percent);
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, Math.max(min, highestValueIn(i)));
+        }
+        return max;
+    }
+
+    public int p50() {
+        return percentile(50);
+    }
+
+    public int p90() {
+        return percentile(90);
+    }
+
+    public int p99() {
+        return percentile(99);
+    }
+
+    public int p999() {
+        return percentile(99.9);
+    }
+
+    // Values of [2^k, 2^(k+1)) for k >= SUB_BITS go to HALF buckets, each 2^(k - SUB_BITS + 1) wide
+    static int bucketOf(int value) {
+        if (value < EXACT) return value;
+        int shift = (31 - Integer.numberOfLeadingZeros(value)) - (SUB_BITS - 1);
+        return shift * HALF + (value >>> shift);
+    }
+
+    static int highestValueIn(int bucket) {
+        if (bucket < EXACT) return bucket;
+        int shift = bucket / HALF - 1;
+        long top = ((long) (bucket - shift * HALF) + 1 << shift) - 1;
+        return (int) Math.min(top, Integer.MAX_VALUE);
+    }
+}
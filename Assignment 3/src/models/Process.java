@@ -7,7 +7,7 @@ package models;
     private int burstTime;
     private int priority;
     private int quantum;  // For AG Scheduling
-    private StringBuilder quantumHistory;
+    private int deadline; // Relative to arrival, 0 if none
     
     public Process(String name, int arrivalTime, int burstTime, int priority, int quantum) {
         this.name = name;
@@ -17,6 +17,11 @@ package models;
         this.quantum = quantum;
     }
 
+    public Process(String name, int arrivalTime, int burstTime, int priority, int quantum, int deadline) {
+        this(name, arrivalTime, burstTime, priority, quantum);
+        this.deadline = deadline;
+    }
+
     public String getName() {
         return name;
     }
@@ -32,6 +37,9 @@ package models;
     public int getQuantum() {
         return quantum;
     }
+    public int getDeadline() {
+        return deadline;
+    }
     
 
     
@@ -0,0 +1,249 @@
+package models;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, column oriented process list (struct of arrays).
+ *
+ * Every row is one process. Arrival, burst, priority and quantum are stored in
+ * int arrays and names are interned into a dictionary, so each row only holds
+ * a dense int name ID. The deadline column only exists if some process has one.
+ * Rows are identified by their index, so two processes with the same name are
+ * still two separate rows.
+ *
+ * Build one with {@link Builder}, {@link #from(List)} or {@link #ofColumns}. A
+ * table can be shared between schedulers (and threads) since nothing mutates it
+ * after it is built.
+ */
+public class ProcessTable {
+    private final int size;
+    private final int[] arrivalTime;
+    private final int[] burstTime;
+    private final int[] priority;
+    private final int[] quantum;
+    private final int[] deadline;  // null when no process has a deadline
+    private final int[] nameId;
+    private final String[] names;
+    private volatile int[] arrivalOrder;
+
+    private ProcessTable(int size, int[] arrivalTime, int[] burstTime, int[] priority,
+                         int[] quantum, int[] deadline, int[] nameId, String[] names) {
+        this.size = size;
+        this.arrivalTime = arrivalTime;
+        this.burstTime = burstTime;
+        this.priority = priority;
+        this.quantum = quantum;
+        this.deadline = deadline;
+        this.nameId = nameId;
+        this.names = names;
+    }
+
+    public static ProcessTable from(List<Process> processes) {
+        Builder builder = new Builder(processes.size());
+        for (Process p : processes) {
+            builder.add(p.getName(), p.getArrivalTime(), p.getBurstTime(), p.getPriority(), p.getQuantum(),
+                    p.getDeadline());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Wraps already filled columns without copying them; the caller must not touch
+     * the arrays afterwards. Used by loaders that decode straight into arrays.
+     */
+    public static ProcessTable ofColumns(int[] arrivalTime, int[] burstTime, int[] priority, int[] quantum,
+                                         int[] nameId, String[] names) {
+        return ofColumns(arrivalTime, burstTime, priority, quantum, null, nameId, names);
+    }
+
+    /** Same, with a deadline column (0 for none), or null if no process has a deadline. */
+    public static ProcessTable ofColumns(int[] arrivalTime, int[] burstTime, int[] priority, int[] quantum,
+                                         int[] deadline, int[] nameId, String[] names) {
+        int size = arrivalTime.length;
+        if (burstTime.length != size || priority.length != size || quantum.length != size || nameId.length != size
+                || (deadline != null && deadline.length != size)) {
+            throw new IllegalArgumentException("Columns have different lengths");
+        }
+        for (int id : nameId) {
+            if (id < 0 || id >= names.length) throw new IllegalArgumentException("Name ID out of range: " + id);
+        }
+        if (deadline != null) {
+            for (int row = 0; row < size; row++) {
+                if (deadline[row] < 0) throw new IllegalArgumentException("Negative deadline in row " + row);
+            }
+        }
+        return new ProcessTable(size, arrivalTime, burstTime, priority, quantum, deadline, nameId, names);
+    }
+
+    public int size() {
+        return size;
+    }
+    public int getArrivalTime(int row) {
+        return arrivalTime[row];
+    }
+    public int getBurstTime(int row) {
+        return burstTime[row];
+    }
+    public int getPriority(int row) {
+        return priority[row];
+    }
+    public int getQuantum(int row) {
+        return quantum[row];
+    }
+    /** Deadline relative to arrival, 0 if the process has none. */
+    public int getDeadline(int row) {
+        return deadline == null ? 0 : deadline[row];
+    }
+    public boolean hasDeadlines() {
+        return deadline != null;
+    }
+    public int getNameId(int row) {
+        return nameId[row];
+    }
+    public String getName(int row) {
+        return names[nameId[row]];
+    }
+    /** Name for an ID returned by getNameId. */
+    public String nameOf(int nameId) {
+        return names[nameId];
+    }
+    public int nameCount() {
+        return names.length;
+    }
+
+    /**
+     * Row indexes sorted by arrival time, ties in row order. Computed once and
+     * shared, so callers must not modify the returned array.
+     */
+    public int[] arrivalOrder() {
+        int[] order = arrivalOrder;
+        if (order == null) {
+            // Sort (arrival, row) pairs packed into longs: primitive sort, and stable by construction
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) arrivalTime[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+            order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (int) keys[i];
+            }
+            arrivalOrder = order;
+        }
+        return order;
+    }
+
+    /** Converts a row back into a Process object. */
+    public Process toProcess(int row) {
+        return new Process(getName(row), arrivalTime[row], burstTime[row], priority[row], quantum[row], getDeadline(row));
+    }
+
+    public static class Builder {
+        private int size;
+        private int[] arrivalTime;
+        private int[] burstTime;
+        private int[] priority;
+        private int[] quantum;
+        private int[] deadline;  // Allocated at the first deadline
+        private int[] nameId;
+        private String[] names = new String[16];
+        private int nameCount;
+        // Open addressing table from name to ID + 1 (0 is an empty slot); no boxing,
+        // no entry objects, which matters when every one of millions of rows has its own name
+        private int[] nameSlots = new int[32];
+        private int[] slotHashes = new int[32];  // Hash of the name in each slot, checked before equals()
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(1, expectedSize);
+            arrivalTime = new int[capacity];
+            burstTime = new int[capacity];
+            priority = new int[capacity];
+            quantum = new int[capacity];
+            nameId = new int[capacity];
+        }
+
+        public Builder add(String name, int arrival, int burst, int priority, int quantum) {
+            return add(name, arrival, burst, priority, quantum, 0);
+        }
+
+        /** A deadline of 0 means none. */
+        public Builder add(String name, int arrival, int burst, int priority, int quantum, int deadline) {
+            if (size == arrivalTime.length) {
+                int capacity = size * 2;
+                arrivalTime = Arrays.copyOf(arrivalTime, capacity);
+                burstTime = Arrays.copyOf(burstTime, capacity);
+                this.priority = Arrays.copyOf(this.priority, capacity);
+                this.quantum = Arrays.copyOf(this.quantum, capacity);
+                if (this.deadline != null) this.deadline = Arrays.copyOf(this.deadline, capacity);
+                nameId = Arrays.copyOf(nameId, capacity);
+            }
+            if (deadline != 0) {
+                if (deadline < 0) throw new IllegalArgumentException("Negative deadline for process " + name);
+                if (this.deadline == null) this.deadline = new int[arrivalTime.length];
+                this.deadline[size] = deadline;
+            }
+            arrivalTime[size] = arrival;
+            burstTime[size] = burst;
+            this.priority[size] = priority;
+            this.quantum[size] = quantum;
+            nameId[size] = intern(name);
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private int intern(String name) {
+            int hash = spread(name.hashCode());
+            int mask = nameSlots.length - 1;
+            int i = hash & mask;
+            for (int slot; (slot = nameSlots[i]) != 0; i = (i + 1) & mask) {
+                if (slotHashes[i] == hash && names[slot - 1].equals(name)) return slot - 1;
+            }
+            int id = nameCount++;
+            if (id == names.length) names = Arrays.copyOf(names, id * 2);
+            names[id] = name;
+            nameSlots[i] = id + 1;
+            slotHashes[i] = hash;
+            if (nameCount * 2 > nameSlots.length) growNameSlots();
+            return id;
+        }
+
+        private void growNameSlots() {
+            int[] oldSlots = nameSlots, oldHashes = slotHashes;
+            nameSlots = new int[oldSlots.length * 2];
+            slotHashes = new int[oldSlots.length * 2];
+            int mask = nameSlots.length - 1;
+            for (int j = 0; j < oldSlots.length; j++) {
+                if (oldSlots[j] == 0) continue;
+                int i = oldHashes[j] & mask;
+                while (nameSlots[i] != 0) i = (i + 1) & mask;
+                nameSlots[i] = oldSlots[j];
+                slotHashes[i] = oldHashes[j];
+            }
+        }
+
+        // Mixes the high bits in, since "P1", "P2"... have sequential hash codes
+        private static int spread(int hash) {
+            return hash * 0x9E3779B9 ^ (hash >>> 16);
+        }
+
+        public ProcessTable build() {
+            return new ProcessTable(size,
+                    Arrays.copyOf(arrivalTime, size),
+                    Arrays.copyOf(burstTime, size),
+                    Arrays.copyOf(priority, size),
+                    Arrays.copyOf(quantum, size),
+                    deadline == null ? null : Arrays.copyOf(deadline, size),
+                    Arrays.copyOf(nameId, size),
+                    Arrays.copyOf(names, nameCount));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package models;
+
+/**
+ * Counters for one run, gathered from the scheduler's events, so they are there
+ * for summaries as well as full results. The run is taken to start at time 0
+ * and end when the last process finishes; with several cores, idle time and
+ * utilization are over all of them.
+ */
+public class SchedulerMetrics {
+    public long contextSwitches;   // Times a core went from one process to a different one
+    public long switchTime;        // Time charged for context switches
+    public long preemptions;       // Times a process lost its core before finishing
+    public long busyTime;          // Time spent running processes
+    public long completed;         // Processes finished
+    public int makespan;           // When the last process finished
+    public int cores = 1;
+
+    /** Core time spent neither running a process nor switching. */
+    public long idleTime() {
+        return Math.max(0, (long) cores * makespan - busyTime - switchTime);
+    }
+
+    /** Share of the core time spent running processes, from 0 to 1. */
+    public double utilization() {
+        return makespan == 0 ? 0 : (double) busyTime / ((long) cores * makespan);
+    }
+
+    /** Processes finished per time unit. */
+    public double throughput() {
+        return makespan == 0 ? 0 : (double) completed / makespan;
+    }
+}
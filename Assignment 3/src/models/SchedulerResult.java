@@ -1,18 +1,39 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class SchedulerResult {
     public String schedulerName;
-    public List<String> executionOrder;
+    public List<String> executionOrder;  // Read-only view of timeline, one name per dispatch
     public List<ProcessResult> processResults;
     public double avgWaitingTime;
     public double avgTurnaroundTime;
+
+    // Filled as processes finish, so they are there even when processResults is not
+    // kept. Response time is from arrival to the first dispatch.
+    public final LatencyHistogram waitingTimes = new LatencyHistogram();
+    public final LatencyHistogram turnaroundTimes = new LatencyHistogram();
+    public final LatencyHistogram responseTimes = new LatencyHistogram();
+
+    // Processes that have a deadline, how many finished after it, and by how much
+    public long deadlineProcesses = 0;
+    public long deadlineMisses = 0;
+    public final LatencyHistogram lateness = new LatencyHistogram();
+
+    // Context switches, preemptions, utilization and throughput
+    public final SchedulerMetrics metrics = new SchedulerMetrics();
+
+    // What ran when; empty when only a summary was asked for
+    public final Timeline timeline = new Timeline();
+
+    // One entry per core for multi-core schedulers, empty otherwise
+    public List<CoreResult> coreResults = new ArrayList<>();
     
     public SchedulerResult(String schedulerName) {
         this.schedulerName = schedulerName;
-        this.executionOrder = new ArrayList<>();
+        this.executionOrder = timeline.executionOrder();
         this.processResults = new ArrayList<>();
         this.avgWaitingTime = 0.0;
         this.avgTurnaroundTime = 0.0;
@@ -25,7 +46,18 @@ public class SchedulerResult {
         public int priority;
         public int waitingTime;
         public int turnaroundTime;
-        public String extraInfo;  // For AG quantum history, or anything else
+        /**
+         * Anything a scheduler wants to add. AG results that reach a caller carry their
+         * formatted quantum history here; summaries skip formatting it.
+         * @deprecated use {@link #getExtraInfo()}, which formats the history when needed
+         */
+        @Deprecated
+        public String extraInfo;
+        private int[] quantumHistory;  // AG only, null otherwise
+        public int deadline;      // Relative to arrival, 0 if none
+        public int slack;         // Deadline minus turnaround time (negative if missed), 0 if no deadline
+        public int responseTime;  // Arrival to first dispatch
+        public int preemptions;   // Times it lost the CPU before finishing
         
         public ProcessResult(String name, int arrival, int burst, int priority, int waiting, int turnaround) {
             this.name = name;
@@ -36,5 +68,49 @@ public class SchedulerResult {
             this.turnaroundTime = turnaround;
             this.extraInfo = "";
         }
+
+        /** Extra detail for output; for AG, the quantum history, formatted if extraInfo is not set. */
+        public String getExtraInfo() {
+            if (quantumHistory != null && extraInfo.isEmpty()) return "Quantum history: " + Arrays.toString(quantumHistory);
+            return extraInfo;
+        }
+
+        public void setExtraInfo(String extraInfo) {
+            this.extraInfo = extraInfo;
+        }
+
+        /**
+         * AG: the quantum at arrival, after each turn on the CPU, and 0 at completion.
+         * Null for other schedulers.
+         */
+        public int[] getQuantumHistory() {
+            return quantumHistory;
+        }
+
+        public void setQuantumHistory(int[] quantumHistory) {
+            this.quantumHistory = quantumHistory;
+        }
+
+        public boolean hasDeadline() {
+            return deadline > 0;
+        }
+
+        public boolean missedDeadline() {
+            return deadline > 0 && slack < 0;
+        }
+    }
+
+    public static class CoreResult {
+        public int core;
+        public long busyTime;        // Running processes
+        public long switchTime;      // Context switching
+        public long dispatches;
+        public long migrationsIn;    // Processes moved here from another core's run queue
+        public long migrationsOut;
+        public double utilization;   // busyTime over the length of the run
+
+        public CoreResult(int core) {
+            this.core = core;
+        }
     }
 }
@@ -0,0 +1,252 @@
+package models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * What every CPU did and when, as intervals: [start, end) on a core, running a
+ * process (by its number in arrival order).
+ *
+ * Stored as primitive columns, one entry per interval. A dispatch of the process
+ * that just ran on the same core, right where it stopped, extends its interval
+ * instead of starting a new one and only bumps the interval's dispatch count, so
+ * e.g. a process running alone under Round Robin is one interval however many
+ * quantums it gets. The dispatch-count column is only allocated once some interval
+ * has a count other than 1, and the core column once a core other than 0 is used.
+ *
+ * Context switches are not intervals of their own. A core always switches right up
+ * to its next dispatch, so each interval only keeps how long its core spent
+ * switching just before it started ({@link #switchTime(int)}), in a column that is
+ * allocated once a switch takes any time.
+ *
+ * {@link #executionOrder()} is the classic list of names, one per dispatch, as a
+ * read-only view over the intervals.
+ *
+ * An interval takes 12 bytes, plus 4 for each optional column once it exists, and
+ * every process 8 more for its name and latest interval. The name list it replaces
+ * took a 4-byte reference per dispatch, so the timeline is only smaller when
+ * intervals merge more than about four dispatches each, as with a long process
+ * alone under a small Round Robin quantum. Otherwise it costs more, in return for
+ * the start and end times. {@link #trimToSize()} drops the spare capacity left by
+ * growth.
+ */
+public class Timeline {
+    private static final int OPEN = -1;  // End of an interval that is still running
+
+    private int size = 0;
+    private int[] start = new int[16];
+    private int[] end = new int[16];
+    private int[] process = new int[16];
+    private int[] dispatches;  // null while every interval has 1
+    private int[] core;        // null while everything ran on core 0
+    private int[] switching;   // Switch time before each interval, null while every switch took 0
+    private long dispatchCount = 0;
+
+    // By process: name, and its latest interval (to close it on completion)
+    private String[] names = new String[16];
+    private int[] lastInterval = new int[16];
+    // By core: its latest interval, or -1, and the switch time since that interval ended
+    private int[] lastOnCore = {-1};
+    private int[] pendingSwitch = {0};
+
+    private final List<String> executionOrder = new ExecutionOrder();
+
+    /** Process {@code id} got core {@code c} at {@code time}. */
+    public void dispatch(int c, int time, long id, String name) {
+        int p = Math.toIntExact(id);
+        if (p >= names.length) {
+            int capacity = Math.max(p + 1, names.length * 2);
+            names = Arrays.copyOf(names, capacity);
+            lastInterval = Arrays.copyOf(lastInterval, capacity);
+        }
+        names[p] = name;
+        dispatchCount++;
+
+        int last = lastOn(c);
+        int switched = pendingSwitch[c];
+        pendingSwitch[c] = 0;
+        // Merging into anything but the newest interval would reorder executionOrder().
+        // A switch that took time leaves a gap, so it never merges.
+        if (last == size - 1 && last >= 0 && process[last] == p && (end[last] == OPEN || end[last] == time)) {
+            end[last] = OPEN;
+            setDispatches(last, dispatchesOf(last) + 1);
+            return;
+        }
+        close(c, time);
+        int interval = append(c, time, OPEN, p);
+        if (switched != 0) setSwitchTime(interval, switched);
+        lastInterval[p] = interval;
+    }
+
+    /** Core {@code c} spends [start, end) switching between processes, up to its next dispatch. */
+    public void contextSwitch(int c, int switchStart, int switchEnd) {
+        close(c, switchStart);
+        lastOn(c);
+        pendingSwitch[c] += switchEnd - switchStart;
+    }
+
+    /** Process {@code id} finished at {@code time}. */
+    public void complete(long id, int time) {
+        int p = (int) id;
+        if (p < names.length && names[p] != null && end[lastInterval[p]] == OPEN) {
+            end[lastInterval[p]] = time;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+    public int start(int interval) {
+        return start[interval];
+    }
+    /** End of the interval, or -1 if the process was still running when recording stopped. */
+    public int end(int interval) {
+        return end[interval];
+    }
+    /** Process number (arrival order). */
+    public int process(int interval) {
+        return process[interval];
+    }
+    /** Name of the process that ran. */
+    public String name(int interval) {
+        return names[process[interval]];
+    }
+    public int core(int interval) {
+        return core == null ? 0 : core[interval];
+    }
+    /** How many dispatches this interval stands for. */
+    public int dispatches(int interval) {
+        return dispatchesOf(interval);
+    }
+    /** Time its core spent switching right before this interval, ending at its start. */
+    public int switchTime(int interval) {
+        return switching == null ? 0 : switching[interval];
+    }
+    /** Total number of dispatches, the size of executionOrder(). */
+    public long dispatchCount() {
+        return dispatchCount;
+    }
+
+    /** Names in dispatch order, one per dispatch. Read only, and follows later changes. */
+    public List<String> executionOrder() {
+        return executionOrder;
+    }
+
+    /** Shrinks the columns to the intervals recorded so far; recording can go on afterwards. */
+    public void trimToSize() {
+        start = Arrays.copyOf(start, size);
+        end = Arrays.copyOf(end, size);
+        process = Arrays.copyOf(process, size);
+        if (dispatches != null) dispatches = Arrays.copyOf(dispatches, size);
+        if (core != null) core = Arrays.copyOf(core, size);
+        if (switching != null) switching = Arrays.copyOf(switching, size);
+    }
+
+    private int lastOn(int c) {
+        if (c >= lastOnCore.length) {
+            int old = lastOnCore.length;
+            lastOnCore = Arrays.copyOf(lastOnCore, Math.max(c + 1, old * 2));
+            Arrays.fill(lastOnCore, old, lastOnCore.length, -1);
+            pendingSwitch = Arrays.copyOf(pendingSwitch, lastOnCore.length);
+        }
+        return lastOnCore[c];
+    }
+
+    // Ends whatever is still running on core c
+    private void close(int c, int time) {
+        int last = lastOn(c);
+        if (last >= 0 && end[last] == OPEN) end[last] = time;
+    }
+
+    private int append(int c, int s, int e, int p) {
+        if (size == start.length) {
+            int capacity = Math.max(16, size * 2);
+            start = Arrays.copyOf(start, capacity);
+            end = Arrays.copyOf(end, capacity);
+            process = Arrays.copyOf(process, capacity);
+            if (dispatches != null) dispatches = Arrays.copyOf(dispatches, capacity);
+            if (core != null) core = Arrays.copyOf(core, capacity);
+            if (switching != null) switching = Arrays.copyOf(switching, capacity);
+        }
+        start[size] = s;
+        end[size] = e;
+        process[size] = p;
+        if (dispatches != null) dispatches[size] = 1;
+        if (c != 0 && core == null) core = new int[start.length];
+        if (core != null) core[size] = c;
+        lastOnCore[c] = size;
+        return size++;
+    }
+
+    private int dispatchesOf(int interval) {
+        return dispatches == null ? 1 : dispatches[interval];
+    }
+
+    private void setDispatches(int interval, int count) {
+        if (dispatches == null) {
+            dispatches = new int[start.length];
+            Arrays.fill(dispatches, 0, size, 1);
+        }
+        dispatches[interval] = count;
+    }
+
+    private void setSwitchTime(int interval, int time) {
+        if (switching == null) switching = new int[start.length];
+        switching[interval] = time;
+    }
+
+    /**
+     * executionOrder() view. Iterating walks the intervals, and so does get(i), from
+     * where the previous call stopped, so reading the list in order (as equals() and
+     * list iterators do) is O(1) a name; going back restarts from the first interval.
+     */
+    private class ExecutionOrder extends AbstractList<String> {
+        // Interval the last get() landed in, and the index of its first dispatch.
+        // Only the newest interval's count changes, so this stays valid as the timeline grows.
+        private int interval = 0;
+        private long first = 0;
+
+        @Override
+        public int size() {
+            return Math.toIntExact(dispatchCount);
+        }
+
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= dispatchCount) {
+                throw new IndexOutOfBoundsException("Index " + index + ", size " + dispatchCount);
+            }
+            if (index < first) {
+                interval = 0;
+                first = 0;
+            }
+            while (first + dispatchesOf(interval) <= index) {
+                first += dispatchesOf(interval++);
+            }
+            return names[process[interval]];
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int interval = 0, left = 0;
+
+                @Override
+                public boolean hasNext() {
+                    while (left == 0 && interval < size) left = dispatchesOf(interval++);
+                    return left > 0;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    left--;
+                    return names[process[interval - 1]];
+                }
+            };
+        }
+    }
+}
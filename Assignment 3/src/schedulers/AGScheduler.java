@@ -1,276 +1,393 @@
 package schedulers;
 
-import models.Process;
 import models.SchedulerResult;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
-public class AGScheduler implements Scheduler {
-
-    private static class AGProcessInfo {
-        Process process;
-        int remainingTime;
-        int quantum;
-        int completionTime;
-        int waitingTime;
-        int turnaroundTime;
-        List<Integer> quantumHistory = new ArrayList<>();
-        int currentQuantumUsed = 0;
-
-        AGProcessInfo(Process p) {
-            this.process = p;
-            this.remainingTime = p.getBurstTime();
-            this.quantum = p.getQuantum();
-            this.quantumHistory.add(this.quantum);
-        }
+public class AGScheduler extends BaseScheduler {
 
-        boolean isFinished() {
-            return remainingTime <= 0;
-        }
+    public AGScheduler() {
+        super("AG Scheduling");
     }
 
     @Override
-    public SchedulerResult schedule(List<Process> processes, int contextSwitchTime, int rrQuantum) {
-        SchedulerResult result = new SchedulerResult("AG Scheduling");
-        if (processes == null || processes.isEmpty()) return result;
-
-        // 1. Setup
-        List<Process> sortedList = new ArrayList<>(processes);
-        sortedList.sort(Comparator.comparingInt(Process::getArrivalTime));
-        
-        Map<String, AGProcessInfo> infoMap = new HashMap<>();
-        for (Process p : sortedList) infoMap.put(p.getName(), new AGProcessInfo(p));
-
-        Deque<AGProcessInfo> readyQueue = new LinkedList<>();
+    Engine engine(ArrivalSource in, int contextSwitchTime, int rrQuantum, SchedulerEventSink out,
+                  SnapshotWriter snapshots) {
+        return new Simulation(in, out, contextSwitchTime, snapshots);
+    }
+
+    /**
+     * Quantum of a process as it arrives. Quantums are per process, so they are
+     * checked as processes come in rather than up front. With a quantum of 1 the
+     * FCFS and priority phases (rounded up) run past it, an SJF preemption then
+     * takes the quantum to 0, and processes at 0 can preempt each other forever
+     * without running.
+     */
+    static int quantumOf(ArrivalSource in, int slot) {
+        int quantum = in.getQuantum(slot);
+        if (quantum < 2) {
+            throw new IllegalArgumentException("AG quantum must be at least 2, got " + quantum
+                    + " for " + in.getName(slot));
+        }
+        return quantum;
+    }
+
+    /**
+     * State of one AG run. Per-process state is indexed by the slot the ArrivalSource gave it.
+     *
+     * The ready queue is a deque linked through the slots, so moving a preemptor to the
+     * head is O(1). Two heaps over the same processes answer the best-priority and
+     * shortest-job checks in O(log n), breaking ties by queue position as a scan from
+     * the head would.
+     */
+    private static class Simulation implements Engine {
+        final ArrivalSource in;
+        final SchedulerEventSink out;
+        final int contextSwitchTime;
+        final SnapshotWriter snapshots;
+        int[] remainingTime = new int[0];
+        int[] quantum = new int[0];
+        long[] id = new long[0];
+        int[] next = new int[0], prev = new int[0];  // Ready queue links, -1 at the ends
+        final QuantumHistories quantumHistory = new QuantumHistories();
+        long nextId = 0;
+        int currentQuantumUsed = 0;  // Only the running process uses its quantum
+
+        int head = -1, tail = -1;
+        final SlotHeap.Positions priorityPositions = new SlotHeap.Positions();
+        final SlotHeap.Positions remainingPositions = new SlotHeap.Positions();
+        final SlotHeap byPriority = new SlotHeap(priorityPositions);
+        final SlotHeap byRemaining = new SlotHeap(remainingPositions);
+        long frontPosition = 0, backPosition = 0;  // Queue positions only grow outwards
         int time = 0;
-        int completed = 0;
-        int arrivalIndex = 0;
-        int n = sortedList.size();
-
-        // Initial arrival
-        if (arrivalIndex < n) {
-            time = Math.max(0, sortedList.get(arrivalIndex).getArrivalTime());
-            while (arrivalIndex < n && sortedList.get(arrivalIndex).getArrivalTime() <= time) {
-                readyQueue.add(infoMap.get(sortedList.get(arrivalIndex).getName()));
-                arrivalIndex++;
-            }
+        long lastProcess = -1;
+        boolean started = false;  // Set once the first arrivals are in, or by load()
+
+        Simulation(ArrivalSource in, SchedulerEventSink out, int contextSwitchTime, SnapshotWriter snapshots) {
+            this.in = in;
+            this.out = out;
+            this.contextSwitchTime = contextSwitchTime;
+            this.snapshots = snapshots;
         }
 
-        AGProcessInfo lastProcess = null;
+        boolean isFinished(int slot) {
+            return remainingTime[slot] <= 0;
+        }
 
-        // 2. Main Loop
-        while (completed < n) {
-            // Fill empty queue if gaps exist in arrival times
-            if (readyQueue.isEmpty() && arrivalIndex < n) {
-                time = Math.max(time, sortedList.get(arrivalIndex).getArrivalTime());
-                while (arrivalIndex < n && sortedList.get(arrivalIndex).getArrivalTime() <= time) {
-                    readyQueue.add(infoMap.get(sortedList.get(arrivalIndex).getName()));
-                    arrivalIndex++;
-                }
+        public void run() {
+            if (!started) {
+                if (!in.hasNext()) return;
+
+                // Initial arrival
+                time = Math.max(0, in.peekArrivalTime());
+                admitArrivals();
+                started = true;
             }
-            
-            if (readyQueue.isEmpty()) break;
-
-            AGProcessInfo current = readyQueue.poll();
-            
-            // Context Switch logic (usually 0 )
-            if (lastProcess != null && current != lastProcess && contextSwitchTime > 0) {
-                time += contextSwitchTime; 
-                // Add arrivals during CS
-                while (arrivalIndex < n && sortedList.get(arrivalIndex).getArrivalTime() <= time) {
-                    readyQueue.add(infoMap.get(sortedList.get(arrivalIndex).getName()));
-                    arrivalIndex++;
+
+            // Main Loop (event driven: time jumps straight to the next phase
+            // boundary, arrival or completion instead of moving one unit at a time)
+            while (head != -1 || in.hasNext()) {
+                if (time >= snapshots.next) snapshots.take(time, this);
+
+                // Fill empty queue if gaps exist in arrival times
+                if (head == -1) {
+                    time = Math.max(time, in.peekArrivalTime());
+                    admitArrivals();
                 }
-            }
 
-            result.executionOrder.add(current.process.getName());
-            
-            // Reset run stats
-            current.currentQuantumUsed = 0;
-            int Q = current.quantum;
-
-            // t1 = End of FCFS (25%)
-            // t2 = End of Priority (Next 25%, so Cumulative 25% + 25%)
-            int t1 = (int) Math.ceil(Q * 0.25);
-            int t2 = t1 + (int) Math.ceil(Q * 0.25); 
-
-            boolean preempted = false;
-            String scenario = "";
-            AGProcessInfo nextToRun = null;
-            
-            // ==========================================
-            // Phase 1: FCFS
-            // ==========================================
-            while (current.currentQuantumUsed < t1 && !current.isFinished()) {
-                current.remainingTime--;
-                current.currentQuantumUsed++;
-                time++;
-                
-                // Check arrivals
-                while (arrivalIndex < n && sortedList.get(arrivalIndex).getArrivalTime() <= time) {
-                    readyQueue.add(infoMap.get(sortedList.get(arrivalIndex).getName()));
-                    arrivalIndex++;
+                int current = pollFirst();
+
+                // Context Switch logic (usually 0 )
+                if (lastProcess != -1 && id[current] != lastProcess && contextSwitchTime > 0) {
+                    out.onContextSwitch(time, time + contextSwitchTime);
+                    time += contextSwitchTime;
+                    // Add arrivals during CS
+                    admitArrivals();
                 }
-            }
 
-            if (current.isFinished()) {
-                finishProcess(current, time);
-                completed++;
-                lastProcess = current;
-                continue;
-            }
+                out.onDispatch(time, id[current], in.getName(current));
 
-            // ==========================================
-            // Phase 2: Priority 
-            // ==========================================
-            
-            // Check if we should preempt NOW before running Priority Phase
-            AGProcessInfo bestPrio = getBestPriorityProcess(readyQueue);
-            if (bestPrio != null && bestPrio.process.getPriority() < current.process.getPriority()) {
-                preempted = true;
-                scenario = "ii";
-                nextToRun = bestPrio;
-            } else {
-                // Run Priority Phase
-                while (current.currentQuantumUsed < t2 && !current.isFinished()) {
-                    current.remainingTime--;
-                    current.currentQuantumUsed++;
-                    time++;
-                    
-                    while (arrivalIndex < n && sortedList.get(arrivalIndex).getArrivalTime() <= time) {
-                        readyQueue.add(infoMap.get(sortedList.get(arrivalIndex).getName()));
-                        arrivalIndex++;
-                    }
+                // Reset run stats
+                currentQuantumUsed = 0;
+                int Q = quantum[current];
+                int priority = in.getPriority(current);
+
+                // t1 = End of FCFS (25%)
+                // t2 = End of Priority (Next 25%, so Cumulative 25% + 25%)
+                int t1 = (int) Math.ceil(Q * 0.25);
+                int t2 = t1 + (int) Math.ceil(Q * 0.25);
+
+                boolean preempted = false;
+                String scenario = "";
+                int nextToRun = -1;
+
+                // ==========================================
+                // Phase 1: FCFS (nothing can preempt, so run the whole slice at once)
+                // ==========================================
+                if (currentQuantumUsed < t1) {
+                    time += execute(current, t1 - currentQuantumUsed);
+                    admitArrivals();
                 }
-            }
 
-            if (!preempted && current.isFinished()) {
-                finishProcess(current, time);
-                completed++;
-                lastProcess = current;
-                continue;
-            }
+                if (isFinished(current)) {
+                    lastProcess = id[current];
+                    finishProcess(current);
+                    continue;
+                }
+
+                // ==========================================
+                // Phase 2: Priority
+                // ==========================================
 
-            // ==========================================
-            // Phase 3: SJF (Preemptive)
-            // ==========================================
-            if (!preempted) {
-                // Check if we should preempt NOW before running SJF Phase
-                AGProcessInfo shortest = getShortestJobProcess(readyQueue, current);
-                
-                if (shortest != null && shortest != current) {
+                // Check if we should preempt NOW before running Priority Phase
+                int bestPrio = getBestPriorityProcess();
+                if (bestPrio != -1 && in.getPriority(bestPrio) < priority) {
                     preempted = true;
-                    scenario = "iii";
-                    nextToRun = shortest;
-                } else {
-                    // Run SJF Phase
-                    while (current.currentQuantumUsed < Q && !current.isFinished()) {
-                        current.remainingTime--;
-                        current.currentQuantumUsed++;
-                        time++;
-
-                        while (arrivalIndex < n && sortedList.get(arrivalIndex).getArrivalTime() <= time) {
-                            readyQueue.add(infoMap.get(sortedList.get(arrivalIndex).getName()));
-                            arrivalIndex++;
-                        }
-                        
-                        // In Strictly Preemptive SJF, we check every unit
-                        AGProcessInfo newerShortest = getShortestJobProcess(readyQueue, current);
-                        if (newerShortest != null && newerShortest != current) {
-                            preempted = true;
-                            scenario = "iii";
-                            nextToRun = newerShortest;
-                            break;
+                    scenario = "ii";
+                    nextToRun = bestPrio;
+                } else if (currentQuantumUsed < t2) {
+                    // Run Priority Phase (arrivals during it cannot preempt either)
+                    time += execute(current, t2 - currentQuantumUsed);
+                    admitArrivals();
+                }
+
+                if (!preempted && isFinished(current)) {
+                    lastProcess = id[current];
+                    finishProcess(current);
+                    continue;
+                }
+
+                // ==========================================
+                // Phase 3: SJF (Preemptive)
+                // ==========================================
+                if (!preempted) {
+                    // Check if we should preempt NOW before running SJF Phase
+                    int shortest = getShortestJobProcess(current);
+
+                    if (shortest != -1) {
+                        preempted = true;
+                        scenario = "iii";
+                        nextToRun = shortest;
+                    } else {
+                        // Run SJF Phase. Waiting processes keep their remaining time while the
+                        // current one only gets shorter, so only a new arrival can preempt it:
+                        // run up to the next arrival and check just the processes that arrived.
+                        while (currentQuantumUsed < Q && !isFinished(current)) {
+                            int slice = Q - currentQuantumUsed;
+                            if (in.hasNext()) {
+                                slice = Math.min(slice, in.peekArrivalTime() - time);
+                            }
+                            time += execute(current, slice);
+
+                            int arrived = admitArrivals();
+
+                            int newerShortest = getShortestArrival(arrived, current);
+                            if (newerShortest != -1) {
+                                preempted = true;
+                                scenario = "iii";
+                                nextToRun = newerShortest;
+                                break;
+                            }
                         }
                     }
                 }
-            }
 
-            // ==========================================
-            // Completion / Updates
-            // ==========================================
-            if (!current.isFinished()) {
-                // Update Quantum
-                if (preempted) {
-                    if (scenario.equals("ii")) {
-                        // Scenario ii: Priority Preemption -> Q += ceil((Q - Used)/2)
-                        int remQ = current.quantum - current.currentQuantumUsed;
-                        current.quantum += (int) Math.ceil(remQ / 2.0);
-                    } else if (scenario.equals("iii")) {
-                        // Scenario iii: SJF Preemption -> Q += (Q - Used)
-                        int remQ = current.quantum - current.currentQuantumUsed;
-                        current.quantum += remQ;
+                lastProcess = id[current];
+
+                // ==========================================
+                // Completion / Updates
+                // ==========================================
+                if (!isFinished(current)) {
+                    // Update Quantum
+                    if (preempted) {
+                        if (scenario.equals("ii")) {
+                            // Scenario ii: Priority Preemption -> Q += ceil((Q - Used)/2)
+                            int remQ = quantum[current] - currentQuantumUsed;
+                            quantum[current] += (int) Math.ceil(remQ / 2.0);
+                        } else if (scenario.equals("iii")) {
+                            // Scenario iii: SJF Preemption -> Q += (Q - Used)
+                            int remQ = quantum[current] - currentQuantumUsed;
+                            quantum[current] += remQ;
+                        }
+                    } else {
+                        // Scenario i: Used all Q -> Q += 2
+                        quantum[current] += 2;
+                    }
+                    quantumHistory.add(current, quantum[current]);
+
+                    // Logic for Queue Management on Preemption
+                    // 1. Current goes to TAIL
+                    addLast(current);
+
+                    // 2. If preempted, the one that caused preemption must be at HEAD
+                    if (preempted && nextToRun != -1) {
+                        remove(nextToRun); // Remove from wherever it is
+                        addFirst(nextToRun); // Move to front
                     }
                 } else {
-                    // Scenario i: Used all Q -> Q += 2
-                    current.quantum += 2;
-                }
-                current.quantumHistory.add(current.quantum);
-                
-                // Logic for Queue Management on Preemption
-                // 1. Current goes to TAIL
-                readyQueue.add(current);
-                
-                // 2. If preempted, the one that caused preemption must be at HEAD
-                if (preempted && nextToRun != null) {
-                    readyQueue.remove(nextToRun); // Remove from wherever it is
-                    readyQueue.addFirst(nextToRun); // Move to front
+                    finishProcess(current);
                 }
-            } else {
-                finishProcess(current, time);
-                completed++;
             }
-            
-            lastProcess = current;
         }
 
-        fillResult(result, infoMap, sortedList);
-        return result;
-    }
+        /**
+         * Runs the process for up to {@code units} time units (stopping early if it finishes)
+         * and returns how many units were actually used.
+         */
+        int execute(int row, int units) {
+            int used = Math.min(units, remainingTime[row]);
+            remainingTime[row] -= used;
+            currentQuantumUsed += used;
+            return used;
+        }
 
-    private void finishProcess(AGProcessInfo p, int time) {
-        p.completionTime = time;
-        p.turnaroundTime = p.completionTime - p.process.getArrivalTime();
-        p.waitingTime = p.turnaroundTime - p.process.getBurstTime();
-        p.quantum = 0;
-        p.quantumHistory.add(0);
-    }
+        /**
+         * Moves every process that has arrived by the current time into the ready queue
+         * and returns how many were added.
+         */
+        int admitArrivals() {
+            int count = 0;
+            while (in.hasNext() && in.peekArrivalTime() <= time) {
+                int slot = in.next();
+                if (slot >= remainingTime.length) grow(Math.max(in.slotCount(), remainingTime.length * 2));
+                remainingTime[slot] = in.getBurstTime(slot);
+                quantum[slot] = quantumOf(in, slot);
+                id[slot] = nextId++;
+                quantumHistory.start(slot, quantum[slot]);
+                addLast(slot);
+                count++;
+            }
+            return count;
+        }
 
-    private AGProcessInfo getBestPriorityProcess(Queue<AGProcessInfo> queue) {
-        AGProcessInfo best = null;
-        for (AGProcessInfo p : queue) {
-            if (best == null || p.process.getPriority() < best.process.getPriority()) {
-                best = p;
+        void grow(int capacity) {
+            remainingTime = Arrays.copyOf(remainingTime, capacity);
+            quantum = Arrays.copyOf(quantum, capacity);
+            id = Arrays.copyOf(id, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            priorityPositions.ensureCapacity(capacity);
+            remainingPositions.ensureCapacity(capacity);
+        }
+
+        public void save(DataOutput state) throws IOException {
+            state.writeInt(time);
+            state.writeLong(lastProcess);
+            state.writeLong(nextId);
+            int waiting = 0;
+            for (int slot = head; slot != -1; slot = next[slot]) waiting++;
+            state.writeInt(waiting);
+            for (int slot = head; slot != -1; slot = next[slot]) {
+                state.writeInt(slot);
+                state.writeInt(remainingTime[slot]);
+                state.writeInt(quantum[slot]);
+                state.writeLong(id[slot]);
+                int[] history = quantumHistory.finish(slot);
+                state.writeInt(history.length);
+                for (int q : history) state.writeInt(q);
             }
         }
-        return best;
-    }
 
-    private AGProcessInfo getShortestJobProcess(Queue<AGProcessInfo> queue, AGProcessInfo current) {
-        AGProcessInfo best = current;
-        for (AGProcessInfo p : queue) {
-            if (p.remainingTime < best.remainingTime) {
-                best = p;
+        // Quantums belong to the processes, so a fork (another rrQuantum) changes nothing
+        public void load(DataInput state, int savedParameter) throws IOException {
+            grow(in.slotCount());
+            started = true;
+            time = state.readInt();
+            lastProcess = state.readLong();
+            nextId = state.readLong();
+            for (int waiting = state.readInt(); waiting > 0; waiting--) {
+                int slot = state.readInt();
+                remainingTime[slot] = state.readInt();
+                quantum[slot] = state.readInt();
+                id[slot] = state.readLong();
+                int length = state.readInt();
+                quantumHistory.start(slot, state.readInt());
+                for (int i = 1; i < length; i++) quantumHistory.add(slot, state.readInt());
+                addLast(slot);
             }
         }
-        return (best == current) ? null : best; // Return null if current is still shortest
-    }
 
-    private void fillResult(SchedulerResult result, Map<String, AGProcessInfo> map, List<Process> originals) {
-        double totalWT = 0;
-        double totalTAT = 0;
-        for (Process p : originals) {
-            AGProcessInfo info = map.get(p.getName());
-            totalWT += info.waitingTime;
-            totalTAT += info.turnaroundTime;
-            
-            SchedulerResult.ProcessResult pr = new SchedulerResult.ProcessResult(
-                p.getName(), p.getArrivalTime(), p.getBurstTime(), p.getPriority(),
-                info.waitingTime, info.turnaroundTime
-            );
-            pr.extraInfo = "Quantum history: " + info.quantumHistory;
-            result.processResults.add(pr);
+        void finishProcess(int slot) {
+            quantum[slot] = 0;
+            quantumHistory.add(slot, 0);
+
+            SchedulerResult.ProcessResult pr = BaseScheduler.resultOf(in, slot, time);
+            BaseScheduler.setQuantumHistory(pr, quantumHistory.finish(slot), out);
+            out.onCompletion(time, id[slot], pr);
+            in.release(slot);
+        }
+
+        // Best priority in the ready queue, the earliest in queue order on ties
+        int getBestPriorityProcess() {
+            return byPriority.peek();
+        }
+
+        int getShortestJobProcess(int current) {
+            int best = byRemaining.peek();
+            if (best != -1 && remainingTime[best] < remainingTime[current]) {
+                return best;
+            }
+            return -1; // Current is still shortest
+        }
+
+        // Same pick as getShortestJobProcess, but only over the last `count` processes,
+        // which were just appended to the ready queue. They are walked from the tail,
+        // so ties go to the one seen later (the earlier arrival).
+        int getShortestArrival(int count, int current) {
+            int best = current;
+            int slot = tail;
+            for (int i = 0; i < count; i++, slot = prev[slot]) {
+                if (remainingTime[slot] < remainingTime[best]
+                        || (best != current && remainingTime[slot] == remainingTime[best])) {
+                    best = slot;
+                }
+            }
+            return (best == current) ? -1 : best;
+        }
+
+        // Ready queue. Waiting processes keep their priority and remaining time, so their
+        // heap keys are set once per stay in the queue.
+
+        void addLast(int slot) {
+            next[slot] = -1;
+            prev[slot] = tail;
+            if (tail == -1) head = slot;
+            else next[tail] = slot;
+            tail = slot;
+            index(slot, backPosition++);
+        }
+
+        void addFirst(int slot) {
+            prev[slot] = -1;
+            next[slot] = head;
+            if (head == -1) tail = slot;
+            else prev[head] = slot;
+            head = slot;
+            index(slot, --frontPosition);
+        }
+
+        void remove(int slot) {
+            int before = prev[slot], after = next[slot];
+            if (before == -1) head = after;
+            else next[before] = after;
+            if (after == -1) tail = before;
+            else prev[after] = before;
+            byPriority.remove(slot);
+            byRemaining.remove(slot);
+        }
+
+        int pollFirst() {
+            int slot = head;
+            remove(slot);
+            return slot;
+        }
+
+        void index(int slot, long position) {
+            byPriority.add(slot, in.getPriority(slot), position);
+            byRemaining.add(slot, remainingTime[slot], position);
         }
-        result.avgWaitingTime = totalWT / originals.size();
-        result.avgTurnaroundTime = totalTAT / originals.size();
     }
 }
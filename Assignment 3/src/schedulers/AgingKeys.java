@@ -0,0 +1,36 @@
+package schedulers;
+
+/**
+ * Keys for priority scheduling with aging, shared by PriorityScheduler and the
+ * multi-core Priority queue. A process with priority p that starts waiting at W has
+ * key W + p * agingInterval, and its effective priority at time T is
+ *   max(1, ceil((key - T) / agingInterval)),
+ * which is monotonic in the key, so ordering waiting processes by key orders them by
+ * effective priority. Aging stops at 1, so a process with priority 0 or below keeps
+ * it while it waits; its key is UNAGED + p, below every key that ages. With no aging
+ * (interval 0) the key is just the priority.
+ */
+class AgingKeys {
+    static final long UNAGED = Long.MIN_VALUE / 2;
+
+    /** Key of a process with the given priority that starts waiting at waitStart. */
+    static long keyOf(int priority, long waitStart, long aging) {
+        if (aging == 0) return priority;
+        if (priority < 1) return UNAGED + priority;
+        return waitStart + priority * aging;
+    }
+
+    /** Priority a waiting process with the given key has at the given time. */
+    static int effectivePriority(long key, long time, long aging) {
+        if (aging == 0) return (int) key;
+        if (key <= UNAGED) return (int) (key - UNAGED);
+        return (int) Math.max(1, -Math.floorDiv(time - key, aging));
+    }
+
+    /** Largest key whose effective priority at the given time is at most p. */
+    static long keyBound(int p, long time, long aging) {
+        if (aging == 0) return p;
+        if (p < 1) return UNAGED + p;
+        return time + p * aging;
+    }
+}
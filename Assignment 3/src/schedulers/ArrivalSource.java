@@ -0,0 +1,265 @@
+package schedulers;
+
+import models.Process;
+import models.ProcessTable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Feeds processes to a scheduling engine in arrival order.
+ *
+ * Each process taken with next() lives in a slot (a small int) until the engine
+ * releases it, and its fields are read through the slot. Slots are always below
+ * slotCount(), so engines can keep their own per-process state in arrays sized
+ * to it. Processes are numbered 0, 1, 2... in the order they are taken.
+ */
+interface ArrivalSource {
+
+    boolean hasNext();
+
+    /** Arrival time of the process next() would return. */
+    int peekArrivalTime();
+
+    /** Takes the next process and returns its slot. */
+    int next();
+
+    /** The engine is done with this slot; it may be handed out again. */
+    void release(int slot);
+
+    /** Upper bound (exclusive) on every slot handed out so far. */
+    int slotCount();
+
+    String getName(int slot);
+    int getArrivalTime(int slot);
+    int getBurstTime(int slot);
+    int getPriority(int slot);
+    int getQuantum(int slot);
+    /** Deadline relative to arrival, 0 if none. */
+    int getDeadline(int slot);
+
+    static ArrivalSource of(ProcessTable table) {
+        return new TableSource(table);
+    }
+
+    static ArrivalSource of(Iterator<Process> arrivals) {
+        return new IteratorSource(arrivals);
+    }
+
+    /**
+     * Reads straight from a ProcessTable: the slot is the table row, and slots are
+     * never reused, so nothing is copied.
+     */
+    class TableSource implements ArrivalSource {
+        private final ProcessTable table;
+        private final int[] order;
+        private int next = 0;
+
+        TableSource(ProcessTable table) {
+            this.table = table;
+            this.order = table.arrivalOrder();
+        }
+
+        public boolean hasNext() {
+            return next < order.length;
+        }
+        public int peekArrivalTime() {
+            return table.getArrivalTime(order[next]);
+        }
+        public int next() {
+            return order[next++];
+        }
+        public void release(int slot) {
+        }
+        public int slotCount() {
+            return order.length;
+        }
+        public String getName(int slot) {
+            return table.getName(slot);
+        }
+        public int getArrivalTime(int slot) {
+            return table.getArrivalTime(slot);
+        }
+        public int getBurstTime(int slot) {
+            return table.getBurstTime(slot);
+        }
+        public int getPriority(int slot) {
+            return table.getPriority(slot);
+        }
+        public int getQuantum(int slot) {
+            return table.getQuantum(slot);
+        }
+        public int getDeadline(int slot) {
+            return table.getDeadline(slot);
+        }
+    }
+
+    /**
+     * Pulls processes from an iterator that must be sorted by arrival time. Only the
+     * processes the engine still holds are kept, in recycled slots, so memory follows
+     * the number of live processes rather than the length of the stream.
+     *
+     * For snapshots it saves the slots in use and how far into the stream it is;
+     * restoring skips that many processes of the same stream and refills the slots.
+     */
+    class IteratorSource implements ArrivalSource {
+        private final Iterator<Process> arrivals;
+        private Process pending;
+        private int lastArrival = Integer.MIN_VALUE;
+        private long taken = 0;
+
+        private String[] name = new String[16];
+        private int[] arrivalTime = new int[16];
+        private int[] burstTime = new int[16];
+        private int[] priority = new int[16];
+        private int[] quantum = new int[16];
+        private int[] deadline = new int[16];
+        private int slots = 0;
+        private int[] free = new int[16];
+        private int freeCount = 0;
+
+        IteratorSource(Iterator<Process> arrivals) {
+            this.arrivals = arrivals;
+            advance();
+        }
+
+        private void advance() {
+            pending = arrivals.hasNext() ? arrivals.next() : null;
+            if (pending != null) {
+                if (pending.getArrivalTime() < lastArrival) {
+                    throw new IllegalArgumentException("Arrivals are not sorted by arrival time at process "
+                            + pending.getName());
+                }
+                lastArrival = pending.getArrivalTime();
+            }
+        }
+
+        public boolean hasNext() {
+            return pending != null;
+        }
+        public int peekArrivalTime() {
+            return pending.getArrivalTime();
+        }
+
+        public int next() {
+            int slot;
+            if (freeCount > 0) {
+                slot = free[--freeCount];
+            } else {
+                slot = slots++;
+                if (slot == name.length) {
+                    int capacity = slot * 2;
+                    name = Arrays.copyOf(name, capacity);
+                    arrivalTime = Arrays.copyOf(arrivalTime, capacity);
+                    burstTime = Arrays.copyOf(burstTime, capacity);
+                    priority = Arrays.copyOf(priority, capacity);
+                    quantum = Arrays.copyOf(quantum, capacity);
+                    deadline = Arrays.copyOf(deadline, capacity);
+                }
+            }
+            name[slot] = pending.getName();
+            arrivalTime[slot] = pending.getArrivalTime();
+            burstTime[slot] = pending.getBurstTime();
+            priority[slot] = pending.getPriority();
+            quantum[slot] = pending.getQuantum();
+            deadline[slot] = pending.getDeadline();
+            taken++;
+            advance();
+            return slot;
+        }
+
+        public void release(int slot) {
+            name[slot] = null;
+            if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+            free[freeCount++] = slot;
+        }
+
+        public int slotCount() {
+            return slots;
+        }
+        public String getName(int slot) {
+            return name[slot];
+        }
+        public int getArrivalTime(int slot) {
+            return arrivalTime[slot];
+        }
+        public int getBurstTime(int slot) {
+            return burstTime[slot];
+        }
+        public int getPriority(int slot) {
+            return priority[slot];
+        }
+        public int getQuantum(int slot) {
+            return quantum[slot];
+        }
+        public int getDeadline(int slot) {
+            return deadline[slot];
+        }
+
+        void save(DataOutput out) throws IOException {
+            out.writeLong(taken);
+            out.writeInt(lastArrival);
+            out.writeInt(slots);
+            boolean[] isFree = new boolean[slots];
+            for (int i = 0; i < freeCount; i++) isFree[free[i]] = true;
+            out.writeInt(slots - freeCount);
+            for (int slot = 0; slot < slots; slot++) {
+                if (isFree[slot]) continue;
+                out.writeInt(slot);
+                out.writeUTF(name[slot]);
+                out.writeInt(arrivalTime[slot]);
+                out.writeInt(burstTime[slot]);
+                out.writeInt(priority[slot]);
+                out.writeInt(quantum[slot]);
+                out.writeInt(deadline[slot]);
+            }
+            out.writeInt(freeCount);
+            for (int i = 0; i < freeCount; i++) out.writeInt(free[i]);
+        }
+
+        /** Picks up where a saved source left off; {@code arrivals} starts at the beginning of the same stream. */
+        static IteratorSource restore(Iterator<Process> arrivals, DataInput in) throws IOException {
+            long taken = in.readLong();
+            int lastArrival = in.readInt();
+            for (long i = 0; i < taken; i++) {
+                if (!arrivals.hasNext()) {
+                    throw new IllegalArgumentException("The snapshot was taken after " + taken
+                            + " processes, but the trace has only " + i);
+                }
+                arrivals.next();
+            }
+            IteratorSource source = new IteratorSource(arrivals);
+            // The saved source had already read the next process too
+            if (source.pending != null && source.lastArrival != lastArrival) {
+                throw new IllegalArgumentException("The trace does not match the snapshot");
+            }
+            source.lastArrival = lastArrival;
+            source.taken = taken;
+
+            int slots = in.readInt();
+            int capacity = Math.max(16, slots);
+            source.name = new String[capacity];
+            source.arrivalTime = new int[capacity];
+            source.burstTime = new int[capacity];
+            source.priority = new int[capacity];
+            source.quantum = new int[capacity];
+            source.deadline = new int[capacity];
+            source.slots = slots;
+            for (int live = in.readInt(); live > 0; live--) {
+                int slot = in.readInt();
+                source.name[slot] = in.readUTF();
+                source.arrivalTime[slot] = in.readInt();
+                source.burstTime[slot] = in.readInt();
+                source.priority[slot] = in.readInt();
+                source.quantum[slot] = in.readInt();
+                source.deadline[slot] = in.readInt();
+            }
+            source.freeCount = in.readInt();
+            source.free = new int[Math.max(16, source.freeCount)];
+            for (int i = 0; i < source.freeCount; i++) source.free[i] = in.readInt();
+            return source;
+        }
+    }
+}
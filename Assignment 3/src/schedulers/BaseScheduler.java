@@ -0,0 +1,168 @@
+package schedulers;
+
+import models.Process;
+import models.ProcessTable;
+import models.SchedulerResult;
+import models.SchedulerResult.ProcessResult;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Common base of the scheduling engines. An engine is written once against an
+ * ArrivalSource and a SchedulerEventSink; the batch API runs it over a
+ * ProcessTable and collects the events into a SchedulerResult, and the streaming
+ * API runs it over an iterator and forwards the events to the caller.
+ */
+public abstract class BaseScheduler implements Scheduler, StreamingScheduler {
+
+    private final String name;
+
+    protected BaseScheduler(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts a run. Engines must report every completion to the sink before
+     * releasing the slot, and take a snapshot whenever one is due.
+     */
+    abstract Engine engine(ArrivalSource in, int contextSwitchTime, int parameter, SchedulerEventSink out,
+                           SnapshotWriter snapshots);
+
+    /** Runs the whole simulation. */
+    void simulate(ArrivalSource in, int contextSwitchTime, int parameter, SchedulerEventSink out) {
+        engine(in, contextSwitchTime, parameter, out, SnapshotWriter.NONE).run();
+    }
+
+    @Override
+    public SchedulerResult schedule(ProcessTable processes, int contextSwitchTime, int rrQuantum) {
+        ResultCollector collector = new ResultCollector(name, processes.size());
+        if (processes.size() > 0) {
+            simulate(ArrivalSource.of(processes), contextSwitchTime, rrQuantum, collector);
+        }
+        return collector.finish();
+    }
+
+    @Override
+    public void stream(Iterator<Process> arrivals, int contextSwitchTime, int rrQuantum, SchedulerEventSink sink) {
+        simulate(ArrivalSource.of(arrivals), contextSwitchTime, rrQuantum, sink);
+    }
+
+    @Override
+    public void stream(ProcessTable processes, int contextSwitchTime, int rrQuantum, SchedulerEventSink sink) {
+        if (processes.size() > 0) {
+            simulate(ArrivalSource.of(processes), contextSwitchTime, rrQuantum, sink);
+        }
+    }
+
+    @Override
+    public SchedulerResult summarize(Iterator<Process> arrivals, int contextSwitchTime, int rrQuantum) {
+        LatencyRecorder recorder = new LatencyRecorder(new SchedulerResult(name));
+        simulate(ArrivalSource.of(arrivals), contextSwitchTime, rrQuantum, recorder);
+        return recorder.result();
+    }
+
+    @Override
+    public SchedulerResult summarize(Iterator<Process> arrivals, int contextSwitchTime, int rrQuantum,
+                                     Checkpoints checkpoints) {
+        LatencyRecorder recorder = new LatencyRecorder(new SchedulerResult(name));
+        ArrivalSource.IteratorSource in = new ArrivalSource.IteratorSource(arrivals);
+        SnapshotWriter snapshots = new SnapshotWriter(name, checkpoints, contextSwitchTime, rrQuantum, in, recorder, 0);
+        engine(in, contextSwitchTime, rrQuantum, recorder, snapshots).run();
+        return recorder.result();
+    }
+
+    @Override
+    public SchedulerResult resume(Snapshot snapshot, Iterator<Process> arrivals, int contextSwitchTime, int rrQuantum,
+                                  Checkpoints checkpoints) {
+        if (!snapshot.schedulerName().equals(name)) {
+            throw new IllegalArgumentException("Snapshot was taken by " + snapshot.schedulerName() + ", not " + name);
+        }
+        LatencyRecorder recorder = new LatencyRecorder(new SchedulerResult(name));
+        Engine engine;
+        try {
+            DataInputStream state = snapshot.body();
+            ArrivalSource.IteratorSource in = ArrivalSource.IteratorSource.restore(arrivals, state);
+            recorder.load(state);
+            SnapshotWriter snapshots = checkpoints == null ? SnapshotWriter.NONE
+                    : new SnapshotWriter(name, checkpoints, contextSwitchTime, rrQuantum, in, recorder, snapshot.time());
+            engine = engine(in, contextSwitchTime, rrQuantum, recorder, snapshots);
+            engine.load(state, snapshot.parameter());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Snapshot is truncated or corrupt", e);
+        }
+        engine.run();
+        return recorder.result();
+    }
+
+    /** Builds ProcessResult for a finished process. */
+    static ProcessResult resultOf(ArrivalSource in, int slot, int completionTime) {
+        int turnaroundTime = completionTime - in.getArrivalTime(slot);
+        ProcessResult result = new ProcessResult(in.getName(slot), in.getArrivalTime(slot), in.getBurstTime(slot),
+                in.getPriority(slot), turnaroundTime - in.getBurstTime(slot), turnaroundTime);
+        int deadline = in.getDeadline(slot);
+        if (deadline > 0) {
+            result.deadline = deadline;
+            result.slack = deadline - turnaroundTime;
+        }
+        return result;
+    }
+
+    /** Gives an AG result its quantum history, also formatted into extraInfo if the sink reads that field. */
+    static void setQuantumHistory(ProcessResult result, int[] history, SchedulerEventSink out) {
+        result.setQuantumHistory(history);
+        if (out.readsExtraInfoField()) result.setExtraInfo(result.getExtraInfo());
+    }
+
+    /**
+     * Collects the events of a batch run into a SchedulerResult. Process results
+     * are listed in arrival order, and dispatches, processes preempted during their
+     * switch and context switches go into the timeline.
+     */
+    private static class ResultCollector extends LatencyRecorder {
+        private final ProcessResult[] processes;
+
+        ResultCollector(String name, int size) {
+            super(new SchedulerResult(name));
+            this.processes = new ProcessResult[size];
+        }
+
+        @Override
+        public void onDispatch(int core, int time, long id, String name) {
+            super.onDispatch(core, time, id, name);
+            result().timeline.dispatch(core, time, id, name);
+        }
+
+        @Override
+        public void onPreemptedDuringSwitch(int core, int time, long id, String name) {
+            super.onPreemptedDuringSwitch(core, time, id, name);
+            result().timeline.dispatch(core, time, id, name);
+        }
+
+        @Override
+        public void onContextSwitch(int core, int start, int end) {
+            super.onContextSwitch(core, start, end);
+            result().timeline.contextSwitch(core, start, end);
+        }
+
+        @Override
+        public void onCompletion(int time, long id, ProcessResult process) {
+            super.onCompletion(time, id, process);
+            result().timeline.complete(id, time);
+            processes[(int) id] = process;
+        }
+
+        @Override
+        public boolean readsExtraInfoField() {
+            return true;  // The results go back to the caller
+        }
+
+        SchedulerResult finish() {
+            result().timeline.trimToSize();
+            result().processResults.addAll(Arrays.asList(processes));
+            return result();
+        }
+    }
+}
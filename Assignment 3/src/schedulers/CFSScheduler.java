@@ -0,0 +1,262 @@
+package schedulers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Completely fair scheduling in the style of Linux's CFS. Every process has a
+ * virtual runtime, its CPU time scaled down by its weight, and the process with the
+ * smallest one runs next. Weights come from the priority field through Linux's
+ * nice-to-weight table: priority 1 is nice 0 (weight 1024), and each step down in
+ * importance costs about 25% of the CPU share (priority p is nice p - 1, clamped to
+ * nice -20..19).
+ *
+ * The running process gets a slice of the scheduling period in proportion to its
+ * weight, where the period is the target latency, stretched to minGranularity per
+ * runnable process when there are many of them; no slice is shorter than
+ * minGranularity. When the slice ends, the process keeps the CPU only if its virtual
+ * runtime is still the smallest. New processes start at the smallest virtual runtime
+ * in the system, and preempt the running process if it is ahead of them by more
+ * than minGranularity (in their virtual time). Context switches are charged when
+ * the CPU changes process, as in SJF and Priority.
+ *
+ * Runnable processes wait in a heap ordered by virtual runtime, then arrival, so
+ * picking the next process and enqueueing one are O(log n).
+ */
+public class CFSScheduler extends BaseScheduler {
+
+    // Linux's sched_prio_to_weight, from nice -20 to 19
+    private static final int[] WEIGHTS = {
+            88761, 71755, 56483, 46273, 36291,
+            29154, 23254, 18705, 14949, 11916,
+            9548, 7620, 6100, 4904, 3906,
+            3121, 2501, 1991, 1586, 1277,
+            1024, 820, 655, 526, 423,
+            335, 272, 215, 172, 137,
+            110, 87, 70, 56, 45,
+            36, 29, 23, 18, 15,
+    };
+    private static final int NICE_0_WEIGHT = 1024;
+    // Virtual runtime is kept in 1/1024 time units, so light processes do not lose precision
+    private static final int VRUNTIME_SHIFT = 10;
+
+    private final int targetLatency, minGranularity;  // 0 when derived from the quantum passed to schedule()
+
+    /** Minimum granularity is the quantum passed to schedule(), target latency 8 times that. */
+    public CFSScheduler() {
+        super("Completely Fair Scheduler (CFS)");
+        this.targetLatency = 0;
+        this.minGranularity = 0;
+    }
+
+    /** Fixed period settings; the quantum passed to schedule() is ignored. */
+    public CFSScheduler(int targetLatency, int minGranularity) {
+        super("Completely Fair Scheduler (CFS)");
+        if (minGranularity < 1 || targetLatency < minGranularity) {
+            throw new IllegalArgumentException("CFS needs 1 <= minGranularity <= targetLatency, got "
+                    + minGranularity + " and " + targetLatency);
+        }
+        this.targetLatency = targetLatency;
+        this.minGranularity = minGranularity;
+    }
+
+    /** Load weight of a process with the given priority. */
+    public static int weightOf(int priority) {
+        int nice = Math.max(-20, Math.min(19, priority - 1));
+        return WEIGHTS[nice + 20];
+    }
+
+    @Override
+    Engine engine(ArrivalSource in, int contextSwitchTime, int quantum, SchedulerEventSink out,
+                  SnapshotWriter snapshots) {
+        int latency = targetLatency, granularity = minGranularity;
+        if (granularity == 0) {
+            if (quantum < 1) {
+                throw new IllegalArgumentException("CFS quantum must be at least 1, got " + quantum);
+            }
+            granularity = quantum;
+            latency = (int) Math.min(Integer.MAX_VALUE, 8L * quantum);
+        }
+        return new Simulation(in, out, contextSwitchTime, latency, granularity, snapshots);
+    }
+
+    /**
+     * State of one run. Per-process state is indexed by the slot the ArrivalSource gave it.
+     */
+    private static class Simulation implements Engine {
+        final ArrivalSource in;
+        final SchedulerEventSink out;
+        final int contextSwitchTime;
+        final int targetLatency, minGranularity;
+        final SnapshotWriter snapshots;
+
+        int[] remaining = new int[0];
+        int[] weight = new int[0];
+        long[] vruntime = new long[0];
+        long[] id = new long[0];
+        long nextId = 0;
+
+        final SlotHeap.Positions positions = new SlotHeap.Positions();
+        final SlotHeap ready = new SlotHeap(positions);
+        long totalWeight = 0;   // Of the ready processes and the running one
+        long minVruntime = 0;   // Never decreases
+        boolean preempt = false;
+
+        int time = 0;
+        long lastId = -1;
+        int running = -1;
+        long sliceEnd = 0;
+
+        Simulation(ArrivalSource in, SchedulerEventSink out, int contextSwitchTime, int targetLatency,
+                   int minGranularity, SnapshotWriter snapshots) {
+            this.in = in;
+            this.out = out;
+            this.contextSwitchTime = contextSwitchTime;
+            this.targetLatency = targetLatency;
+            this.minGranularity = minGranularity;
+            this.snapshots = snapshots;
+        }
+
+        public void run() {
+            while (running != -1 || !ready.isEmpty() || in.hasNext()) {
+                if (time >= snapshots.next) snapshots.take(time, this);
+
+                admitArrivals(time, running);
+
+                if (running == -1 || preempt) {
+                    preempt = false;
+                    if (running != -1) {
+                        ready.add(running, vruntime[running], id[running]);
+                    }
+                    if (ready.isEmpty()) {
+                        time = in.peekArrivalTime();
+                        running = -1;
+                        continue;
+                    }
+                    running = ready.poll();
+                    if (lastId != id[running]) {
+                        if (lastId != -1) {
+                            if (contextSwitchTime > 0) {
+                                out.onContextSwitch(time, time + contextSwitchTime);
+                            }
+                            time += contextSwitchTime;
+                        }
+                        out.onDispatch(time, id[running], in.getName(running));
+                        lastId = id[running];
+                    }
+                    sliceEnd = time + slice(running);
+                }
+
+                // Run until the process finishes, its slice ends, or the next arrival (which
+                // may preempt it). Always run at least one unit, as arrivals during a context
+                // switch are only compared against it after that unit.
+                long end = Math.min(time + (long) remaining[running], Math.max(time + 1L, sliceEnd));
+                if (in.hasNext()) {
+                    end = Math.min(end, Math.max(time + 1L, in.peekArrivalTime()));
+                }
+                int ran = (int) (end - time);
+                remaining[running] -= ran;
+                vruntime[running] += ((long) ran << VRUNTIME_SHIFT) * NICE_0_WEIGHT / weight[running];
+                time += ran;
+
+                long smallest = vruntime[running];
+                if (!ready.isEmpty()) smallest = Math.min(smallest, vruntime[ready.peek()]);
+                minVruntime = Math.max(minVruntime, smallest);
+
+                if (remaining[running] == 0) {
+                    out.onCompletion(time, id[running], BaseScheduler.resultOf(in, running, time));
+                    totalWeight -= weight[running];
+                    in.release(running);
+                    running = -1;
+                } else if (time >= sliceEnd) {
+                    // Requeued and picked again if its virtual runtime is still the smallest
+                    preempt = true;
+                }
+            }
+        }
+
+        void admitArrivals(int time, int running) {
+            while (in.hasNext() && in.peekArrivalTime() <= time) {
+                int slot = in.next();
+                if (slot >= remaining.length) grow(Math.max(in.slotCount(), remaining.length * 2));
+                remaining[slot] = in.getBurstTime(slot);
+                weight[slot] = weightOf(in.getPriority(slot));
+                vruntime[slot] = minVruntime;
+                id[slot] = nextId++;
+                totalWeight += weight[slot];
+                ready.add(slot, vruntime[slot], id[slot]);
+
+                // Wakeup preemption, with minGranularity in the new process's virtual time
+                long granularity = ((long) minGranularity << VRUNTIME_SHIFT) * NICE_0_WEIGHT / weight[slot];
+                if (running != -1 && vruntime[running] - vruntime[slot] > granularity) {
+                    preempt = true;
+                }
+            }
+        }
+
+        void grow(int capacity) {
+            remaining = Arrays.copyOf(remaining, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            vruntime = Arrays.copyOf(vruntime, capacity);
+            id = Arrays.copyOf(id, capacity);
+            positions.ensureCapacity(capacity);
+        }
+
+        // Weights come from the priorities, and totalWeight from the weights. A fork keeps
+        // the running process's slice; the new period settings apply from its next one.
+        public void save(DataOutput state) throws IOException {
+            state.writeInt(time);
+            state.writeLong(lastId);
+            state.writeLong(sliceEnd);
+            state.writeLong(minVruntime);
+            state.writeBoolean(preempt);
+            state.writeLong(nextId);
+            state.writeInt(running);
+            if (running != -1) saveProcess(state, running);
+            state.writeInt(ready.size());
+            for (int i = 0; i < ready.size(); i++) saveProcess(state, ready.slotAt(i));
+        }
+
+        void saveProcess(DataOutput state, int slot) throws IOException {
+            state.writeInt(slot);
+            state.writeInt(remaining[slot]);
+            state.writeLong(vruntime[slot]);
+            state.writeLong(id[slot]);
+        }
+
+        public void load(DataInput state, int savedParameter) throws IOException {
+            grow(in.slotCount());
+            time = state.readInt();
+            lastId = state.readLong();
+            sliceEnd = state.readLong();
+            minVruntime = state.readLong();
+            preempt = state.readBoolean();
+            nextId = state.readLong();
+            running = state.readInt();
+            if (running != -1) loadProcess(state);
+            for (int waiting = state.readInt(); waiting > 0; waiting--) {
+                int slot = loadProcess(state);
+                ready.add(slot, vruntime[slot], id[slot]);
+            }
+        }
+
+        int loadProcess(DataInput state) throws IOException {
+            int slot = state.readInt();
+            remaining[slot] = state.readInt();
+            vruntime[slot] = state.readLong();
+            id[slot] = state.readLong();
+            weight[slot] = weightOf(in.getPriority(slot));
+            totalWeight += weight[slot];
+            return slot;
+        }
+
+        // Share of the scheduling period for the process about to run
+        long slice(int slot) {
+            long runnable = ready.size() + 1;
+            long period = Math.max(targetLatency, runnable * minGranularity);
+            return Math.max(minGranularity, period * weight[slot] / totalWeight);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package schedulers;
+
+import java.nio.file.Path;
+
+/**
+ * Where and how often a run writes snapshots. A snapshot is taken the first time
+ * the simulation reaches each multiple of the interval (in simulated time units).
+ *
+ * If the file name contains {@code %d}, each snapshot gets its own file, named by
+ * the time it was taken, so a run can later be forked from any of them. Otherwise
+ * each snapshot replaces the previous one, which is all that resuming a run that
+ * died needs. Files are written next to their final name and then moved into
+ * place, so a crash while writing never leaves a broken snapshot behind.
+ */
+public class Checkpoints {
+    private final Path file;
+    private final long interval;
+
+    public Checkpoints(Path file, long interval) {
+        if (interval < 1) throw new IllegalArgumentException("Checkpoint interval must be at least 1, got " + interval);
+        this.file = file;
+        this.interval = interval;
+    }
+
+    public long interval() {
+        return interval;
+    }
+
+    /** File for a snapshot taken at the given time. */
+    public Path fileFor(int time) {
+        String name = file.getFileName().toString();
+        return name.contains("%d") ? file.resolveSibling(name.replace("%d", Integer.toString(time))) : file;
+    }
+}
@@ -0,0 +1,173 @@
+package schedulers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Preemptive earliest deadline first. The ready process whose absolute deadline
+ * (arrival plus its relative deadline) comes first runs, and an arrival with an
+ * earlier deadline preempts the running process; equal deadlines go to the earlier
+ * arrival. Processes without a deadline run only when no process with one is ready,
+ * first come first served.
+ *
+ * Deadlines are soft: a process that misses its deadline still runs to completion,
+ * and the miss shows up in the result's deadline counts, lateness histogram and the
+ * process's slack (which every scheduler reports, so the other policies can be
+ * compared on the same trace). Context switches are charged when the CPU changes
+ * process, as in SJF and Priority.
+ *
+ * Ready processes sit in a heap by absolute deadline, then arrival, so arrivals and
+ * dispatches are O(log n).
+ */
+public class EDFScheduler extends BaseScheduler {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    public EDFScheduler() {
+        super("Earliest Deadline First (EDF)");
+    }
+
+    @Override
+    Engine engine(ArrivalSource in, int contextSwitchTime, int parameter, SchedulerEventSink out,
+                  SnapshotWriter snapshots) {
+        return new Simulation(in, out, contextSwitchTime, snapshots);
+    }
+
+    /**
+     * State of one run. Per-process state is indexed by the slot the ArrivalSource gave it.
+     */
+    private static class Simulation implements Engine {
+        final ArrivalSource in;
+        final SchedulerEventSink out;
+        final int contextSwitchTime;
+        final SnapshotWriter snapshots;
+
+        int[] remaining = new int[0];
+        long[] due = new long[0];  // Absolute deadline, NO_DEADLINE if none
+        long[] id = new long[0];
+        long nextId = 0;
+
+        final SlotHeap.Positions positions = new SlotHeap.Positions();
+        final SlotHeap ready = new SlotHeap(positions);
+
+        int time = 0;
+        long lastId = -1;
+        int running = -1;
+
+        Simulation(ArrivalSource in, SchedulerEventSink out, int contextSwitchTime, SnapshotWriter snapshots) {
+            this.in = in;
+            this.out = out;
+            this.contextSwitchTime = contextSwitchTime;
+            this.snapshots = snapshots;
+        }
+
+        public void run() {
+            while (running != -1 || !ready.isEmpty() || in.hasNext()) {
+                if (time >= snapshots.next) snapshots.take(time, this);
+
+                admitArrivals(time);
+
+                // The running process only loses the CPU to a strictly earlier deadline
+                if (running == -1 || (!ready.isEmpty() && due[ready.peek()] < due[running])) {
+                    if (running != -1) {
+                        ready.add(running, due[running], id[running]);
+                    }
+                    if (ready.isEmpty()) {
+                        time = in.peekArrivalTime();
+                        continue;
+                    }
+                    running = ready.poll();
+                    if (lastId != id[running]) {
+                        if (lastId != -1) {
+                            if (contextSwitchTime > 0) {
+                                out.onContextSwitch(time, time + contextSwitchTime);
+                            }
+                            time += contextSwitchTime;
+                        }
+                        out.onDispatch(time, id[running], in.getName(running));
+                        lastId = id[running];
+                    }
+                }
+
+                // Run until the process finishes or the next arrival, which may preempt it.
+                // Always run at least one unit: arrivals during the context switch are only
+                // compared against it after that unit.
+                int runTime = remaining[running];
+                if (in.hasNext()) {
+                    runTime = Math.min(runTime, Math.max(1, in.peekArrivalTime() - time));
+                }
+                remaining[running] -= runTime;
+                time += runTime;
+
+                if (remaining[running] == 0) {
+                    out.onCompletion(time, id[running], BaseScheduler.resultOf(in, running, time));
+                    in.release(running);
+                    running = -1;
+                }
+            }
+        }
+
+        void admitArrivals(int time) {
+            while (in.hasNext() && in.peekArrivalTime() <= time) {
+                int slot = in.next();
+                if (slot >= remaining.length) grow(Math.max(in.slotCount(), remaining.length * 2));
+                remaining[slot] = in.getBurstTime(slot);
+                due[slot] = dueOf(slot);
+                id[slot] = nextId++;
+                ready.add(slot, due[slot], id[slot]);
+            }
+        }
+
+        long dueOf(int slot) {
+            int deadline = in.getDeadline(slot);
+            return deadline > 0 ? (long) in.getArrivalTime(slot) + deadline : NO_DEADLINE;
+        }
+
+        void grow(int capacity) {
+            remaining = Arrays.copyOf(remaining, capacity);
+            due = Arrays.copyOf(due, capacity);
+            id = Arrays.copyOf(id, capacity);
+            positions.ensureCapacity(capacity);
+        }
+
+        // Deadlines are recomputed from the processes' fields
+        public void save(DataOutput state) throws IOException {
+            state.writeInt(time);
+            state.writeLong(lastId);
+            state.writeLong(nextId);
+            state.writeInt(running);
+            if (running != -1) saveProcess(state, running);
+            state.writeInt(ready.size());
+            for (int i = 0; i < ready.size(); i++) saveProcess(state, ready.slotAt(i));
+        }
+
+        void saveProcess(DataOutput state, int slot) throws IOException {
+            state.writeInt(slot);
+            state.writeInt(remaining[slot]);
+            state.writeLong(id[slot]);
+        }
+
+        public void load(DataInput state, int savedParameter) throws IOException {
+            grow(in.slotCount());
+            time = state.readInt();
+            lastId = state.readLong();
+            nextId = state.readLong();
+            running = state.readInt();
+            if (running != -1) loadProcess(state);
+            for (int waiting = state.readInt(); waiting > 0; waiting--) {
+                int slot = loadProcess(state);
+                ready.add(slot, due[slot], id[slot]);
+            }
+        }
+
+        int loadProcess(DataInput state) throws IOException {
+            int slot = state.readInt();
+            remaining[slot] = state.readInt();
+            id[slot] = state.readLong();
+            due[slot] = dueOf(slot);
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package schedulers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * One run of a scheduling engine. Engines check for a due checkpoint at the top of
+ * their main loop, where everything they need to carry on is in fields, and save
+ * exactly that: the clock, the live processes' state and the order of the queues
+ * holding them. A freshly built engine that loads it runs on from that point as if
+ * it had never stopped.
+ */
+interface Engine {
+
+    /** Runs until every process has finished. */
+    void run();
+
+    void save(DataOutput state) throws IOException;
+
+    /**
+     * Restores state written by save(), after the ArrivalSource has been restored.
+     * {@code savedParameter} is the parameter of the run that saved it: when it
+     * differs from this engine's (a fork), state that depends on it is adapted.
+     */
+    void load(DataInput state, int savedParameter) throws IOException;
+}
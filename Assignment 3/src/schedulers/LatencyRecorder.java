@@ -0,0 +1,293 @@
+package schedulers;
+
+import models.SchedulerMetrics;
+import models.SchedulerResult;
+import models.SchedulerResult.CoreResult;
+import models.SchedulerResult.ProcessResult;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Records waiting, turnaround and response times into a SchedulerResult's
+ * histograms and averages as processes finish, counts deadline misses and their
+ * lateness, fills its metrics, and passes every event on to another sink (if any).
+ *
+ * Only the first dispatch time and preemption count of processes that have started
+ * and not finished yet are kept, in a small open-addressing table, so memory
+ * follows the number of live processes rather than the length of the run.
+ * Processes only leave the CPU unfinished when preempted, so a process dispatched
+ * again, other than straight after itself on the same core, was preempted once
+ * more. Dispatching the process a core already ran is a single comparison, and
+ * switching to another reads and bumps one long: the table packs each id with the
+ * low bits of its preemption count, so it is no wider than the id table response
+ * times needed on their own. The counters are kept here and copied into the
+ * result's metrics by {@link #result()}.
+ */
+public class LatencyRecorder implements SchedulerEventSink {
+    private static final int EMPTY = -1;
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long MAX_ID = (1L << (64 - COUNT_BITS)) - 1;  // With a full count, EMPTY
+
+    private final SchedulerResult result;
+    private final SchedulerEventSink next;
+    private long completed = 0;
+    private long totalWaiting = 0, totalTurnaround = 0;
+    private long contextSwitches = 0, switchTime = 0, preemptions = 0, busyTime = 0;
+    private int makespan = 0;
+
+    // By slot: the process id << COUNT_BITS | the low bits of its preemptions, or
+    // EMPTY for a free slot; and beside it, only touched on the first dispatch, on
+    // completion and when the low bits wrap, first dispatch time << 32 | the high bits
+    private long[] table = new long[64];
+    private long[] started = new long[64];
+    private int live = 0;
+
+    // Process each core dispatched last, or EMPTY; one entry per core seen so far
+    private long[] onCore = {EMPTY};
+
+    public LatencyRecorder(SchedulerResult result) {
+        this(result, null);
+    }
+
+    public LatencyRecorder(SchedulerResult result, SchedulerEventSink next) {
+        this.result = result;
+        this.next = next;
+        Arrays.fill(table, EMPTY);
+    }
+
+    public SchedulerResult result() {
+        SchedulerMetrics metrics = result.metrics;
+        metrics.contextSwitches = contextSwitches;
+        metrics.switchTime = switchTime;
+        metrics.preemptions = preemptions;
+        metrics.busyTime = busyTime;
+        metrics.completed = completed;
+        metrics.makespan = makespan;
+        metrics.cores = onCore.length;
+        return result;
+    }
+
+    @Override
+    public void onDispatch(int time, long id, String name) {
+        onDispatch(0, time, id, name);
+    }
+
+    @Override
+    public void onDispatch(int core, int time, long id, String name) {
+        if (core >= onCore.length || onCore[core] != id) switchTo(core, time, id);
+        if (next != null) next.onDispatch(core, time, id, name);
+    }
+
+    // A core takes a process other than the one it ran last
+    private void switchTo(int core, int time, long id) {
+        if (core >= onCore.length) addCores(core + 1);
+        if (onCore[core] != EMPTY) contextSwitches++;
+        onCore[core] = id;
+        int i = find(id);
+        long entry = table[i];
+        if (entry == EMPTY) {
+            if (id >= MAX_ID) throw new IllegalArgumentException("Process id " + id + " is too large to record");
+            table[i] = id << COUNT_BITS;
+            started[i] = (long) time << 32;
+            if (++live * 2 > table.length) grow();
+        } else if ((entry & COUNT_MASK) != COUNT_MASK) {
+            preemptions++;
+            table[i] = entry + 1;
+        } else {
+            preemptions++;
+            table[i] = entry & ~COUNT_MASK;
+            started[i]++;
+        }
+    }
+
+    @Override
+    public void onPreemptedDuringSwitch(int time, long id, String name) {
+        onPreemptedDuringSwitch(0, time, id, name);
+    }
+
+    // The core did switch to the process, but it has not started: no response time
+    // and no preemption
+    @Override
+    public void onPreemptedDuringSwitch(int core, int time, long id, String name) {
+        if (core >= onCore.length) addCores(core + 1);
+        if (onCore[core] != EMPTY && onCore[core] != id) contextSwitches++;
+        onCore[core] = id;
+        if (next != null) next.onPreemptedDuringSwitch(core, time, id, name);
+    }
+
+    @Override
+    public void onContextSwitch(int start, int end) {
+        onContextSwitch(0, start, end);
+    }
+
+    @Override
+    public void onContextSwitch(int core, int start, int end) {
+        switchTime += end - start;
+        if (next != null) next.onContextSwitch(core, start, end);
+    }
+
+    @Override
+    public void onCompletion(int time, long id, ProcessResult process) {
+        int i = find(id);
+        int response = process.waitingTime;  // Finished without ever running (zero burst)
+        if (table[i] != EMPTY) {
+            response = (int) (started[i] >>> 32) - process.arrivalTime;
+            process.preemptions = (int) Math.min(Integer.MAX_VALUE, preemptionsAt(i));
+            remove(i);
+        }
+        process.responseTime = response;
+        result.waitingTimes.record(process.waitingTime);
+        result.turnaroundTimes.record(process.turnaroundTime);
+        result.responseTimes.record(response);
+        if (process.hasDeadline()) {
+            result.deadlineProcesses++;
+            if (process.missedDeadline()) {
+                result.deadlineMisses++;
+                result.lateness.record(-process.slack);
+            }
+        }
+
+        completed++;
+        busyTime += process.burstTime;
+        if (time > makespan) makespan = time;
+        totalWaiting += process.waitingTime;
+        totalTurnaround += process.turnaroundTime;
+        result.avgWaitingTime = (double) totalWaiting / completed;
+        result.avgTurnaroundTime = (double) totalTurnaround / completed;
+
+        if (next != null) next.onCompletion(time, id, process);
+    }
+
+    // Only the sink after this one could read it
+    @Override
+    public boolean readsExtraInfoField() {
+        return next != null && next.readsExtraInfoField();
+    }
+
+    @Override
+    public void onCoreFinished(CoreResult core) {
+        if (core.core >= onCore.length) addCores(core.core + 1);
+        result.coreResults.add(core);
+        if (next != null) next.onCoreFinished(core);
+    }
+
+    /** Everything recorded so far, for a snapshot. */
+    void save(DataOutput out) throws IOException {
+        out.writeLong(completed);
+        out.writeLong(contextSwitches);
+        out.writeLong(switchTime);
+        out.writeLong(preemptions);
+        out.writeLong(busyTime);
+        out.writeInt(makespan);
+        out.writeInt(onCore.length);
+        for (long id : onCore) out.writeLong(id);
+        out.writeLong(totalWaiting);
+        out.writeLong(totalTurnaround);
+        out.writeLong(result.deadlineProcesses);
+        out.writeLong(result.deadlineMisses);
+        result.waitingTimes.writeTo(out);
+        result.turnaroundTimes.writeTo(out);
+        result.responseTimes.writeTo(out);
+        result.lateness.writeTo(out);
+        out.writeInt(live);
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == EMPTY) continue;
+            out.writeLong(table[i] >>> COUNT_BITS);
+            out.writeInt((int) (started[i] >>> 32));
+            out.writeLong(preemptionsAt(i));
+        }
+    }
+
+    /** Picks up from what save() wrote, into a recorder that has seen nothing yet. */
+    void load(DataInput in) throws IOException {
+        completed = in.readLong();
+        contextSwitches = in.readLong();
+        switchTime = in.readLong();
+        preemptions = in.readLong();
+        busyTime = in.readLong();
+        makespan = in.readInt();
+        addCores(in.readInt());
+        for (int core = 0; core < onCore.length; core++) onCore[core] = in.readLong();
+        totalWaiting = in.readLong();
+        totalTurnaround = in.readLong();
+        result.deadlineProcesses = in.readLong();
+        result.deadlineMisses = in.readLong();
+        result.waitingTimes.readFrom(in);
+        result.turnaroundTimes.readFrom(in);
+        result.responseTimes.readFrom(in);
+        result.lateness.readFrom(in);
+        if (completed > 0) {
+            result.avgWaitingTime = (double) totalWaiting / completed;
+            result.avgTurnaroundTime = (double) totalTurnaround / completed;
+        }
+        for (int count = in.readInt(); count > 0; count--) {
+            long id = in.readLong();
+            int i = find(id);
+            int firstDispatch = in.readInt();
+            long preempted = in.readLong();
+            table[i] = id << COUNT_BITS | (preempted & COUNT_MASK);
+            started[i] = (long) firstDispatch << 32 | preempted >>> COUNT_BITS;
+            if (++live * 2 > table.length) grow();
+        }
+    }
+
+    private void addCores(int cores) {
+        int old = onCore.length;
+        if (cores <= old) return;
+        onCore = Arrays.copyOf(onCore, cores);
+        Arrays.fill(onCore, old, cores, EMPTY);
+    }
+
+    private long preemptionsAt(int i) {
+        return (started[i] & 0xFFFFFFFFL) << COUNT_BITS | (table[i] & COUNT_MASK);
+    }
+
+    // Index in table of the slot holding id, or of the free slot where it would go
+    private int find(long id) {
+        int mask = table.length - 1;
+        int i = spread(id) & mask;
+        while (table[i] != EMPTY && table[i] >>> COUNT_BITS != id) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    // Backward-shift deletion: moves later entries of the probe run into the hole
+    private void remove(int i) {
+        int mask = table.length - 1;
+        int hole = i;
+        for (i = (i + 1) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            int home = spread(table[i] >>> COUNT_BITS) & mask;
+            // Move the entry if its home is not in (hole, i] (cyclically)
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                table[hole] = table[i];
+                started[hole] = started[i];
+                hole = i;
+            }
+        }
+        table[hole] = EMPTY;
+        live--;
+    }
+
+    private void grow() {
+        long[] oldTable = table, oldStarted = started;
+        table = new long[oldTable.length * 2];
+        started = new long[oldTable.length * 2];
+        Arrays.fill(table, EMPTY);
+        for (int i = 0; i < oldTable.length; i++) {
+            if (oldTable[i] != EMPTY) {
+                int slot = find(oldTable[i] >>> COUNT_BITS);
+                table[slot] = oldTable[i];
+                started[slot] = oldStarted[i];
+            }
+        }
+    }
+
+    private static int spread(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,341 @@
+package schedulers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Multi-level feedback queue. New processes enter the top level; the highest
+ * non-empty level runs round robin with its own quantum, and a process that uses a
+ * whole quantum at one level (over any number of dispatches) drops to the next one.
+ * A process arriving at a higher level than the running one preempts it, and the
+ * preempted process goes back to the front of its level, keeping what it has used
+ * of its quantum. Every boostInterval time units all processes go back to the top
+ * level with a fresh quantum, so long jobs are not starved.
+ *
+ * The quantum of level i is either given, or the quantum passed to schedule()
+ * doubled i times. Context switches are charged when the CPU changes process, as
+ * in SJF and Priority.
+ *
+ * Each level is a FIFO linked through the slots, and a bitmap says which levels
+ * hold anything, so enqueueing and picking the next process are O(1), and a boost
+ * is O(levels): the level lists are spliced together, and the level of a process
+ * moved by a boost is only reset when it is next dispatched.
+ */
+public class MLFQScheduler extends BaseScheduler {
+
+    public static final int MAX_LEVELS = Long.SIZE;
+
+    private final int levels;
+    private final int[] fixedQuantums;  // null when derived from the quantum passed to schedule()
+    private final int boostInterval;    // 0 turns boosting off
+
+    /** Three levels with quantums q, 2q and 4q, boosted every 100 time units. */
+    public MLFQScheduler() {
+        this(3, 100);
+    }
+
+    /** Level i has quantum q * 2^i, where q is the quantum passed to schedule(). */
+    public MLFQScheduler(int levels, int boostInterval) {
+        super("Multi-Level Feedback Queue (MLFQ)");
+        if (levels < 1 || levels > MAX_LEVELS) {
+            throw new IllegalArgumentException("MLFQ needs 1 to " + MAX_LEVELS + " levels, got " + levels);
+        }
+        if (boostInterval < 0) {
+            throw new IllegalArgumentException("Boost interval must not be negative, got " + boostInterval);
+        }
+        this.levels = levels;
+        this.fixedQuantums = null;
+        this.boostInterval = boostInterval;
+    }
+
+    /** One level per quantum, top level first; the quantum passed to schedule() is ignored. */
+    public MLFQScheduler(int[] quantums, int boostInterval) {
+        super("Multi-Level Feedback Queue (MLFQ)");
+        if (quantums.length < 1 || quantums.length > MAX_LEVELS) {
+            throw new IllegalArgumentException("MLFQ needs 1 to " + MAX_LEVELS + " levels, got " + quantums.length);
+        }
+        for (int quantum : quantums) {
+            if (quantum < 1) throw new IllegalArgumentException("MLFQ quantums must be at least 1, got " + quantum);
+        }
+        if (boostInterval < 0) {
+            throw new IllegalArgumentException("Boost interval must not be negative, got " + boostInterval);
+        }
+        this.levels = quantums.length;
+        this.fixedQuantums = quantums.clone();
+        this.boostInterval = boostInterval;
+    }
+
+    @Override
+    Engine engine(ArrivalSource in, int contextSwitchTime, int quantum, SchedulerEventSink out,
+                  SnapshotWriter snapshots) {
+        int[] quantums = fixedQuantums;
+        if (quantums == null) {
+            if (quantum < 1) {
+                throw new IllegalArgumentException("MLFQ quantum must be at least 1, got " + quantum);
+            }
+            quantums = new int[levels];
+            for (int level = 0; level < levels; level++) {
+                quantums[level] = (int) Math.min(Integer.MAX_VALUE, (long) quantum << Math.min(level, 31));
+            }
+        }
+        return new Simulation(in, out, contextSwitchTime, quantums, boostInterval, snapshots);
+    }
+
+    /**
+     * State of one run. Per-process state is indexed by the slot the ArrivalSource gave it.
+     */
+    private static class Simulation implements Engine {
+        final ArrivalSource in;
+        final SchedulerEventSink out;
+        final int contextSwitchTime;
+        final int[] quantums;
+        final int boostInterval;
+        final SnapshotWriter snapshots;
+
+        int[] remaining = new int[0];
+        long[] id = new long[0];
+        int[] level = new int[0];
+        int[] used = new int[0];    // Time used of the quantum at the current level
+        int[] epoch = new int[0];   // Boost count when level and used were last set
+        int[] next = new int[0];    // Next slot in the same level, -1 at the tail
+        long nextId = 0;
+        int boosts = 0;
+
+        // One FIFO per level, and a bit per level that is not empty
+        final int[] head, tail;
+        long occupied = 0;
+
+        int time = 0;
+        long lastId = -1;
+        int running = -1;
+        long nextBoost;
+
+        Simulation(ArrivalSource in, SchedulerEventSink out, int contextSwitchTime, int[] quantums,
+                   int boostInterval, SnapshotWriter snapshots) {
+            this.in = in;
+            this.out = out;
+            this.contextSwitchTime = contextSwitchTime;
+            this.quantums = quantums;
+            this.boostInterval = boostInterval;
+            this.snapshots = snapshots;
+            nextBoost = boostInterval > 0 ? boostInterval : Long.MAX_VALUE;
+            head = new int[quantums.length];
+            tail = new int[quantums.length];
+            Arrays.fill(head, -1);
+            Arrays.fill(tail, -1);
+        }
+
+        public void run() {
+            int bottom = quantums.length - 1;
+
+            while (running != -1 || occupied != 0 || in.hasNext()) {
+                if (time >= snapshots.next) snapshots.take(time, this);
+
+                admitArrivals(time);
+
+                if (time >= nextBoost) {
+                    boost(running);
+                    nextBoost = (time / boostInterval + 1L) * boostInterval;
+                }
+
+                // Only a higher level preempts; the running process keeps its place in its own
+                if (running != -1 && occupied != 0 && highestLevel() < level[running]) {
+                    addFirst(running);
+                    running = -1;
+                }
+
+                if (running == -1) {
+                    if (occupied == 0) {
+                        time = in.peekArrivalTime();
+                        continue;
+                    }
+                    running = pollHighest();
+                    if (epoch[running] != boosts) {
+                        setLevel(running, 0);
+                    }
+                    if (lastId != id[running]) {
+                        if (lastId != -1) {
+                            if (contextSwitchTime > 0) {
+                                out.onContextSwitch(time, time + contextSwitchTime);
+                            }
+                            time += contextSwitchTime;
+                        }
+                        out.onDispatch(time, id[running], in.getName(running));
+                        lastId = id[running];
+                    }
+                }
+
+                // Run until the process finishes, its quantum runs out, the next boost, or
+                // (below the top level) the next arrival. Always run at least one unit, as
+                // arrivals and boosts during a context switch are only acted on after it.
+                int quantum = quantums[level[running]];
+                long end = time + Math.min(remaining[running], quantum - used[running]);
+                end = Math.min(end, Math.max(time + 1L, nextBoost));
+                if (level[running] > 0 && in.hasNext()) {
+                    end = Math.min(end, Math.max(time + 1L, in.peekArrivalTime()));
+                }
+                int ran = (int) (end - time);
+                remaining[running] -= ran;
+                used[running] += ran;
+                time += ran;
+
+                if (remaining[running] == 0) {
+                    out.onCompletion(time, id[running], BaseScheduler.resultOf(in, running, time));
+                    in.release(running);
+                    running = -1;
+                } else if (used[running] == quantum) {
+                    // Arrivals during the quantum go ahead of the demoted process, as in Round Robin
+                    admitArrivals(time);
+                    setLevel(running, Math.min(level[running] + 1, bottom));
+                    addLast(running);
+                    running = -1;
+                }
+            }
+        }
+
+        void admitArrivals(int time) {
+            while (in.hasNext() && in.peekArrivalTime() <= time) {
+                int slot = in.next();
+                if (slot >= remaining.length) grow(Math.max(in.slotCount(), remaining.length * 2));
+                remaining[slot] = in.getBurstTime(slot);
+                id[slot] = nextId++;
+                setLevel(slot, 0);
+                addLast(slot);
+            }
+        }
+
+        void grow(int capacity) {
+            remaining = Arrays.copyOf(remaining, capacity);
+            id = Arrays.copyOf(id, capacity);
+            level = Arrays.copyOf(level, capacity);
+            used = Arrays.copyOf(used, capacity);
+            epoch = Arrays.copyOf(epoch, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+
+        // Each list is saved in order. After a boost the top list holds processes whose
+        // level is stale until they are dispatched, so a process's level does not say
+        // which list it is in.
+        public void save(DataOutput state) throws IOException {
+            state.writeInt(time);
+            state.writeLong(lastId);
+            state.writeLong(nextBoost);
+            state.writeInt(boosts);
+            state.writeLong(nextId);
+            state.writeInt(running);
+            if (running != -1) saveProcess(state, running);
+            state.writeInt(head.length);
+            for (int l = 0; l < head.length; l++) {
+                int count = 0;
+                for (int slot = head[l]; slot != -1; slot = next[slot]) count++;
+                state.writeInt(count);
+                for (int slot = head[l]; slot != -1; slot = next[slot]) saveProcess(state, slot);
+            }
+        }
+
+        void saveProcess(DataOutput state, int slot) throws IOException {
+            state.writeInt(slot);
+            state.writeInt(remaining[slot]);
+            state.writeLong(id[slot]);
+            state.writeInt(level[slot]);
+            state.writeInt(used[slot]);
+            state.writeInt(epoch[slot]);
+        }
+
+        // A fork with shorter quantums leaves a process that has already used more than
+        // its new quantum one unit to run at its level
+        public void load(DataInput state, int savedParameter) throws IOException {
+            grow(in.slotCount());
+            time = state.readInt();
+            lastId = state.readLong();
+            nextBoost = state.readLong();
+            boosts = state.readInt();
+            nextId = state.readLong();
+            running = state.readInt();
+            if (running != -1) loadProcess(state);
+            int savedLevels = state.readInt();
+            if (savedLevels != head.length) {
+                throw new IllegalArgumentException("Snapshot has " + savedLevels + " MLFQ levels, not " + head.length);
+            }
+            for (int l = 0; l < head.length; l++) {
+                for (int count = state.readInt(); count > 0; count--) {
+                    int slot = loadProcess(state);
+                    next[slot] = -1;
+                    if (tail[l] == -1) head[l] = slot;
+                    else next[tail[l]] = slot;
+                    tail[l] = slot;
+                    occupied |= 1L << l;
+                }
+            }
+        }
+
+        int loadProcess(DataInput state) throws IOException {
+            int slot = state.readInt();
+            remaining[slot] = state.readInt();
+            id[slot] = state.readLong();
+            level[slot] = state.readInt();
+            used[slot] = Math.min(state.readInt(), quantums[level[slot]] - 1);
+            epoch[slot] = state.readInt();
+            return slot;
+        }
+
+        void setLevel(int slot, int newLevel) {
+            level[slot] = newLevel;
+            used[slot] = 0;
+            epoch[slot] = boosts;
+        }
+
+        // Moves every waiting process to the top level, in level order, and the running one too
+        void boost(int running) {
+            boosts++;
+            if (running != -1) {
+                setLevel(running, 0);
+            }
+            if ((occupied & ~1L) == 0) return;
+            int last = tail[0];
+            for (int l = 1; l < head.length; l++) {
+                if (head[l] == -1) continue;
+                if (last == -1) head[0] = head[l];
+                else next[last] = head[l];
+                last = tail[l];
+                head[l] = tail[l] = -1;
+            }
+            tail[0] = last;
+            occupied = 1;
+        }
+
+        int highestLevel() {
+            return Long.numberOfTrailingZeros(occupied);
+        }
+
+        int pollHighest() {
+            int l = highestLevel();
+            int slot = head[l];
+            head[l] = next[slot];
+            if (head[l] == -1) {
+                tail[l] = -1;
+                occupied &= ~(1L << l);
+            }
+            return slot;
+        }
+
+        void addLast(int slot) {
+            int l = level[slot];
+            next[slot] = -1;
+            if (tail[l] == -1) head[l] = slot;
+            else next[tail[l]] = slot;
+            tail[l] = slot;
+            occupied |= 1L << l;
+        }
+
+        void addFirst(int slot) {
+            int l = level[slot];
+            next[slot] = head[l];
+            if (head[l] == -1) tail[l] = slot;
+            head[l] = slot;
+            occupied |= 1L << l;
+        }
+    }
+}
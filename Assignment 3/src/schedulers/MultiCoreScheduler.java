@@ -0,0 +1,1074 @@
+package schedulers;
+
+import models.SchedulerResult.CoreResult;
+import models.SchedulerResult.ProcessResult;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Multiprocessor versions of SJF, Round Robin, Priority and AG scheduling.
+ *
+ * Every core has its own run queue and applies the policy to that queue alone, the
+ * way the single-core schedulers do to their one queue. A process runs on one core
+ * at a time and keeps its state (remaining time, aged priority, AG quantum and
+ * history) when it moves. Where processes go is up to the balancer:
+ *   PUSH   arrivals go to the least-loaded core, and a core whose load (running plus
+ *          waiting) gets two or more above the least-loaded one pushes a waiting
+ *          process there
+ *   PULL   arrivals go to a home core (a hash of their arrival number); a core that
+ *          runs out of work pulls a waiting process from the core with the longest queue
+ *   STEAL  arrivals go to a home core; a core that runs out of work probes a few
+ *          random cores and steals half of the waiting processes of the first one that
+ *          has any, retrying with exponential backoff while anything is waiting
+ * Moving a process between run queues is a migration, counted by both cores.
+ *
+ * A core pays the context switch time when it switches to a different process than
+ * the one it ran last. The policies follow their single-core rules (AG's FCFS,
+ * priority and SJF phases and quantum updates, aging by waiting time, SRTF and
+ * quantum expiry). With one core and no context switch time the results match
+ * the single-core schedulers exactly, execution order included: both list every
+ * process when it starts running. With a switch time they stay close, since a core
+ * here only pays it when it actually changes process.
+ *
+ * The simulation is event driven: cores with a decision pending sit in a heap by
+ * the time of that decision, load queries go through a tree over the cores, and
+ * run queues are heaps or intrusive lists over slots, so an event costs
+ * O(log cores + log queue length) however many cores and processes there are.
+ */
+public class MultiCoreScheduler extends BaseScheduler {
+
+    public enum Policy {
+        SJF("Preemptive Shortest Job First (SJF)"),
+        RR("Round Robin"),
+        PRIORITY("Preemptive Priority Scheduling (with Aging)"),
+        AG("AG Scheduling");
+
+        private final String title;
+
+        Policy(String title) {
+            this.title = title;
+        }
+
+        public static Policy parse(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown policy " + name + " (sjf, rr, priority or ag)");
+            }
+        }
+    }
+
+    public enum Balancing {
+        PUSH("push"), PULL("pull"), STEAL("work stealing");
+
+        private final String label;
+
+        Balancing(String label) {
+            this.label = label;
+        }
+
+        public static Balancing parse(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown balancing " + name + " (push, pull or steal)");
+            }
+        }
+    }
+
+    private static final int STEAL_PROBES = 4;
+    private static final int MAX_BACKOFF = 64;
+
+    private static final int IDLE = 0, SWITCHING = 1, RUNNING = 2;
+    private static final int EXHAUSTED = 0, PRIORITY_PREEMPTED = 1, SJF_PREEMPTED = 2;  // AG scenarios i, ii, iii
+
+    private final Policy policy;
+    private final int cores;
+    private final Balancing balancing;
+
+    public MultiCoreScheduler(Policy policy, int cores, Balancing balancing) {
+        super(policy.title + " [" + cores + " cores, " + balancing.label + "]");
+        if (cores < 1) throw new IllegalArgumentException("Need at least one core, got " + cores);
+        this.policy = policy;
+        this.cores = cores;
+        this.balancing = balancing;
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    public int cores() {
+        return cores;
+    }
+
+    public Balancing balancing() {
+        return balancing;
+    }
+
+    /** The last argument is the RR quantum for RR, the aging interval for Priority, and unused otherwise. */
+    @Override
+    Engine engine(ArrivalSource in, int contextSwitchTime, int parameter, SchedulerEventSink out,
+                  SnapshotWriter snapshots) {
+        if (policy == Policy.RR && parameter < 1) {
+            throw new IllegalArgumentException("Round Robin quantum must be at least 1, got " + parameter);
+        }
+        return new Simulation(in, out, contextSwitchTime, parameter, snapshots);
+    }
+
+    /**
+     * State of one run. Per-process state is indexed by the slot the ArrivalSource
+     * gave it; a slot is in at most one run queue at a time.
+     */
+    private class Simulation implements Engine {
+        final ArrivalSource in;
+        final SchedulerEventSink out;
+        final int contextSwitchTime;
+        final int parameter;
+        final long aging;
+        final SnapshotWriter snapshots;
+
+        final Core[] core;
+        final SlotHeap timers;          // Cores with a decision pending, by its time
+        final long[] timerAt;
+        final boolean[] timerSet;
+        final LoadTree loads;           // PUSH: running + waiting per core, PULL: waiting, STEAL: none
+        final int[] idle;               // Cores with nothing to run and nobody waking them
+        final int[] idleAt;
+        int idleCount = 0;
+        final SplitMix random = new SplitMix(1);
+
+        int time = 0;
+        long nextId = 0;
+        long live = 0;      // Arrived and not finished
+        long waiting = 0;   // In some run queue
+
+        int[] remaining = new int[0];
+        long[] id = new long[0];
+        int[] next = new int[0], prev = new int[0];   // Links for the list run queues (RR, AG)
+        long[] waitKey = new long[0];                 // Priority: aging key, as in PriorityScheduler
+        int[] quantum = new int[0];                   // AG
+        final QuantumHistories quantumHistory = new QuantumHistories();
+        final OrderedMinTree.Nodes treeNodes = new OrderedMinTree.Nodes();
+        final SlotHeap.Positions firstHeap = new SlotHeap.Positions();
+        final SlotHeap.Positions secondHeap = new SlotHeap.Positions();
+
+        Simulation(ArrivalSource in, SchedulerEventSink out, int contextSwitchTime, int parameter,
+                   SnapshotWriter snapshots) {
+            this.in = in;
+            this.out = out;
+            this.contextSwitchTime = contextSwitchTime;
+            this.parameter = parameter;
+            this.aging = Math.max(0, parameter);
+            this.snapshots = snapshots;
+
+            SlotHeap.Positions timerPositions = new SlotHeap.Positions();
+            timerPositions.ensureCapacity(cores);
+            this.timers = new SlotHeap(timerPositions);
+            this.timerAt = new long[cores];
+            this.timerSet = new boolean[cores];
+            this.loads = balancing == Balancing.STEAL ? null : new LoadTree(cores);
+            this.idle = new int[cores];
+            this.idleAt = new int[cores];
+            this.core = new Core[cores];
+            for (int c = 0; c < cores; c++) {
+                core[c] = new Core(c);
+                idle[idleCount] = c;
+                idleAt[c] = idleCount++;
+            }
+        }
+
+        public void run() {
+            while (live > 0 || in.hasNext()) {
+                if (time >= snapshots.next) snapshots.take(time, this);
+
+                long nextDecision = timers.isEmpty() ? Long.MAX_VALUE : timerAt[timers.peek()];
+                // Arrivals go first on ties, so a decision sees everything that arrived at its time
+                if (in.hasNext() && in.peekArrivalTime() <= nextDecision) {
+                    time = Math.max(time, in.peekArrivalTime());
+                    while (in.hasNext() && in.peekArrivalTime() <= time) {
+                        admit(in.next());
+                    }
+                } else if (nextDecision != Long.MAX_VALUE) {
+                    int c = timers.poll();
+                    timerSet[c] = false;
+                    time = (int) nextDecision;
+                    decide(core[c]);
+                } else {
+                    throw new IllegalStateException("Simulation stalled with " + live + " processes unfinished");
+                }
+            }
+
+            for (Core c : core) {
+                c.stats.utilization = time == 0 ? 0 : (double) c.stats.busyTime / time;
+                out.onCoreFinished(c.stats);
+            }
+        }
+
+        void admit(int slot) {
+            if (slot >= remaining.length) grow(Math.max(in.slotCount(), remaining.length * 2));
+            remaining[slot] = in.getBurstTime(slot);
+            id[slot] = nextId++;
+            if (policy == Policy.PRIORITY) {
+                int priority = in.getPriority(slot);
+                waitKey[slot] = AgingKeys.keyOf(priority, in.getArrivalTime(slot), aging);
+            } else if (policy == Policy.AG) {
+                quantum[slot] = AGScheduler.quantumOf(in, slot);
+                quantumHistory.start(slot, quantum[slot]);
+            }
+
+            if (remaining[slot] == 0) {
+                complete(slot);
+                return;
+            }
+            live++;
+            Core target = balancing == Balancing.PUSH ? core[loads.minIndex()] : core[home(id[slot])];
+            target.queue.add(slot);
+            waiting++;
+            updateLoad(target);
+            wake(target);
+            offerWork(target);
+        }
+
+        void grow(int capacity) {
+            remaining = Arrays.copyOf(remaining, capacity);
+            id = Arrays.copyOf(id, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            if (policy == Policy.PRIORITY) waitKey = Arrays.copyOf(waitKey, capacity);
+            if (policy == Policy.AG) quantum = Arrays.copyOf(quantum, capacity);
+            if (policy == Policy.PRIORITY) treeNodes.ensureCapacity(capacity);
+            firstHeap.ensureCapacity(capacity);
+            secondHeap.ensureCapacity(capacity);
+        }
+
+        // ==========================================
+        // Snapshots
+        // ==========================================
+
+        // Everything that decides what happens next is saved in order: the idle list,
+        // each run queue (heaps in array order, since migrations take their last entry),
+        // the timers and the random generator. Loads are recomputed from the queues.
+        public void save(DataOutput state) throws IOException {
+            state.writeInt(time);
+            state.writeLong(nextId);
+            state.writeLong(live);
+            state.writeLong(waiting);
+            state.writeLong(random.seed);
+            state.writeInt(idleCount);
+            for (int i = 0; i < idleCount; i++) state.writeInt(idle[i]);
+            for (Core c : core) {
+                state.writeInt(c.state);
+                state.writeLong(c.lastId);
+                state.writeInt(c.since);
+                state.writeInt(c.backoff);
+                state.writeBoolean(timerSet[c.index]);
+                state.writeLong(timerAt[c.index]);
+                state.writeLong(c.stats.busyTime);
+                state.writeLong(c.stats.switchTime);
+                state.writeLong(c.stats.dispatches);
+                state.writeLong(c.stats.migrationsIn);
+                state.writeLong(c.stats.migrationsOut);
+                state.writeInt(c.running);
+                if (c.running != -1) saveProcess(state, c.running);
+                c.queue.save(state);
+            }
+        }
+
+        void saveProcess(DataOutput state, int slot) throws IOException {
+            state.writeInt(slot);
+            state.writeInt(remaining[slot]);
+            state.writeLong(id[slot]);
+            if (policy == Policy.PRIORITY) {
+                state.writeLong(waitKey[slot]);
+            } else if (policy == Policy.AG) {
+                state.writeInt(quantum[slot]);
+                int[] history = quantumHistory.finish(slot);
+                state.writeInt(history.length);
+                for (int q : history) state.writeInt(q);
+            }
+        }
+
+        // A fork changes the RR quantum or the aging interval. Running processes are
+        // checked again at once under the new one, and with a new aging interval every
+        // waiting process keeps the priority it has aged to, as in PriorityScheduler.
+        public void load(DataInput state, int savedParameter) throws IOException {
+            grow(in.slotCount());
+            long savedAging = Math.max(0, savedParameter);
+            time = state.readInt();
+            nextId = state.readLong();
+            live = state.readLong();
+            waiting = state.readLong();
+            random.seed = state.readLong();
+            for (Core c : core) idleAt[c.index] = -1;
+            idleCount = state.readInt();
+            for (int i = 0; i < idleCount; i++) {
+                idle[i] = state.readInt();
+                idleAt[idle[i]] = i;
+            }
+            for (Core c : core) {
+                c.state = state.readInt();
+                c.lastId = state.readLong();
+                c.since = state.readInt();
+                c.backoff = state.readInt();
+                boolean timer = state.readBoolean();
+                long at = state.readLong();
+                if (timer) schedule(c, at);
+                c.stats.busyTime = state.readLong();
+                c.stats.switchTime = state.readLong();
+                c.stats.dispatches = state.readLong();
+                c.stats.migrationsIn = state.readLong();
+                c.stats.migrationsOut = state.readLong();
+                c.running = state.readInt();
+                if (c.running != -1) loadProcess(state);
+                c.queue.load(state, savedAging);
+                updateLoad(c);
+            }
+            if (savedParameter != parameter && (policy == Policy.RR || policy == Policy.PRIORITY)) {
+                for (Core c : core) {
+                    if (c.state == RUNNING) schedule(c, time);
+                }
+            }
+        }
+
+        int loadProcess(DataInput state) throws IOException {
+            int slot = state.readInt();
+            remaining[slot] = state.readInt();
+            id[slot] = state.readLong();
+            if (policy == Policy.PRIORITY) {
+                waitKey[slot] = state.readLong();
+            } else if (policy == Policy.AG) {
+                quantum[slot] = state.readInt();
+                int length = state.readInt();
+                quantumHistory.start(slot, state.readInt());
+                for (int i = 1; i < length; i++) quantumHistory.add(slot, state.readInt());
+            }
+            return slot;
+        }
+
+        // ==========================================
+        // Core decisions
+        // ==========================================
+
+        void decide(Core c) {
+            switch (c.state) {
+                case IDLE -> pick(c);
+                case SWITCHING -> {
+                    c.stats.switchTime += time - c.since;
+                    start(c);
+                }
+                default -> check(c);
+            }
+        }
+
+        // Takes the next process from the core's queue (or from another core) and
+        // switches to it, or leaves the core idle
+        void pick(Core c) {
+            int slot = c.queue.poll();
+            if (slot == -1) slot = findWork(c);
+            if (slot == -1) {
+                c.state = IDLE;
+                updateLoad(c);
+                enterIdle(c);
+                return;
+            }
+            waiting--;
+            c.running = slot;
+            leaveIdle(c);
+            updateLoad(c);
+
+            if (c.lastId != -1 && c.lastId != id[slot] && contextSwitchTime > 0) {
+                c.state = SWITCHING;
+                c.since = time;
+                out.onContextSwitch(c.index, time, time + contextSwitchTime);
+                schedule(c, (long) time + contextSwitchTime);
+            } else {
+                start(c);
+            }
+            offerWork(c);
+        }
+
+        void start(Core c) {
+            int slot = c.running;
+            c.state = RUNNING;
+            c.since = time;
+            c.lastId = id[slot];
+            c.queue.start(slot);
+            if (c.queue.yields(slot)) {
+                // Something better came along during the switch, so it goes back without running
+                out.onPreemptedDuringSwitch(c.index, time, id[slot], in.getName(slot));
+                putBack(c, slot);
+                return;
+            }
+            c.stats.dispatches++;
+            out.onDispatch(c.index, time, id[slot], in.getName(slot));
+            schedule(c, Math.min((long) time + remaining[slot], c.queue.nextCheck(slot)));
+        }
+
+        // Brings the running process up to date, then finishes it, preempts it, or
+        // lets it run to its next check
+        void check(Core c) {
+            int slot = c.running;
+            int ran = time - c.since;
+            if (ran > 0) {
+                remaining[slot] -= ran;
+                c.stats.busyTime += ran;
+                c.queue.ran(ran);
+                c.since = time;
+            }
+
+            if (remaining[slot] == 0) {
+                c.running = -1;
+                live--;
+                complete(slot);
+                pick(c);
+            } else if (c.queue.yields(slot)) {
+                putBack(c, slot);
+            } else {
+                schedule(c, Math.min((long) time + remaining[slot], c.queue.nextCheck(slot)));
+            }
+        }
+
+        // The running process gives up the core and waits in its queue again
+        void putBack(Core c, int slot) {
+            c.running = -1;
+            c.queue.requeue(slot);
+            waiting++;
+            pick(c);
+        }
+
+        void complete(int slot) {
+            ProcessResult result = BaseScheduler.resultOf(in, slot, time);
+            if (policy == Policy.SJF) {
+                result.priority = 0; // Priority not used in SJF
+            } else if (policy == Policy.AG) {
+                quantum[slot] = 0;
+                quantumHistory.add(slot, 0);
+                BaseScheduler.setQuantumHistory(result, quantumHistory.finish(slot), out);
+            }
+            out.onCompletion(time, id[slot], result);
+            in.release(slot);
+        }
+
+        // Idle: decide now. Running: check for preemption now. Switching: decides when done.
+        void wake(Core c) {
+            if (c.state == SWITCHING) return;
+            leaveIdle(c);
+            schedule(c, time);
+        }
+
+        void schedule(Core c, long at) {
+            if (timerSet[c.index]) timers.remove(c.index);
+            timerAt[c.index] = at;
+            timers.add(c.index, at, c.index);
+            timerSet[c.index] = true;
+        }
+
+        // ==========================================
+        // Balancing
+        // ==========================================
+
+        int home(long processId) {
+            long h = processId * 0x9E3779B97F4A7C15L;
+            return (int) Long.remainderUnsigned(h ^ (h >>> 29), cores);
+        }
+
+        // Called when a core's queue grew: lets the balancer spread the surplus
+        void offerWork(Core c) {
+            if (cores == 1 || c.queue.size() == 0) return;
+            if (balancing == Balancing.PUSH) {
+                Core target = core[loads.minIndex()];
+                if (loads.value(c.index) - loads.value(target.index) >= 2) {
+                    target.queue.add(migrate(c, target));
+                    updateLoad(target);
+                    wake(target);
+                }
+            } else if (idleCount > 0 && c.queue.size() > (c.running == -1 ? 1 : 0)) {
+                // More waiting here than this core can start now: wake an idle core to come and get it
+                wake(core[idle[idleCount - 1]]);
+            }
+        }
+
+        // Work from another core for an idle one, or -1
+        int findWork(Core c) {
+            if (waiting == 0 || cores == 1) return -1;
+            if (balancing == Balancing.PULL) {
+                Core victim = core[loads.maxIndex()];
+                if (victim == c || victim.queue.size() == 0) return -1;
+                return migrate(victim, c);
+            }
+            if (balancing == Balancing.STEAL) {
+                for (int probe = 0; probe < STEAL_PROBES; probe++) {
+                    int v = random.nextInt(cores - 1);
+                    Core victim = core[v >= c.index ? v + 1 : v];
+                    int available = victim.queue.size();
+                    if (available == 0) continue;
+                    // Steal half: run the first, queue the rest here
+                    int first = migrate(victim, c);
+                    for (int i = 1; i < (available + 1) / 2; i++) {
+                        c.queue.add(migrate(victim, c));
+                    }
+                    updateLoad(c);
+                    c.backoff = 1;
+                    return first;
+                }
+                // Nothing found: try again later while anything is waiting anywhere
+                schedule(c, (long) time + c.backoff);
+                c.backoff = Math.min(c.backoff * 2, MAX_BACKOFF);
+            }
+            return -1;
+        }
+
+        // Takes a waiting process off one core's queue for another; the caller places it
+        int migrate(Core from, Core to) {
+            int slot = from.queue.removeForMigration();
+            from.stats.migrationsOut++;
+            to.stats.migrationsIn++;
+            updateLoad(from);
+            return slot;
+        }
+
+        void updateLoad(Core c) {
+            if (loads == null) return;
+            int waitingHere = c.queue.size();
+            loads.set(c.index, balancing == Balancing.PUSH ? waitingHere + (c.running != -1 ? 1 : 0) : waitingHere);
+        }
+
+        void enterIdle(Core c) {
+            if (idleAt[c.index] != -1) return;
+            idle[idleCount] = c.index;
+            idleAt[c.index] = idleCount++;
+        }
+
+        void leaveIdle(Core c) {
+            int at = idleAt[c.index];
+            if (at == -1) return;
+            int last = idle[--idleCount];
+            idle[at] = last;
+            idleAt[last] = at;
+            idleAt[c.index] = -1;
+        }
+
+        // ==========================================
+        // Cores and run queues
+        // ==========================================
+
+        class Core {
+            final int index;
+            final RunQueue queue;
+            final CoreResult stats;
+            int state = IDLE;
+            int running = -1;     // Slot running or being switched to
+            long lastId = -1;     // Process this core ran last
+            int since;            // Start of the current switch, or of the running stretch not yet accounted
+            int backoff = 1;      // STEAL: wait before probing again
+
+            Core(int index) {
+                this.index = index;
+                this.stats = new CoreResult(index);
+                this.queue = switch (policy) {
+                    case SJF -> new ShortestFirstQueue();
+                    case RR -> new RoundRobinQueue();
+                    case PRIORITY -> new AgingQueue();
+                    case AG -> new AGQueue();
+                };
+            }
+        }
+
+        /** One core's ready processes, and the policy's view of the one it runs. */
+        abstract class RunQueue {
+            abstract int size();
+
+            /** The process becomes ready here (arrival, migration, or requeue). */
+            abstract void add(int slot);
+
+            /** Removes the process to run next, or returns -1. */
+            abstract int poll();
+
+            /** Removes a waiting process to hand to another core, or returns -1. */
+            abstract int removeForMigration();
+
+            /** The process got this core. */
+            void start(int slot) {
+            }
+
+            /** The running process used {@code units} more of the CPU. */
+            void ran(int units) {
+            }
+
+            /** Latest time the running process may go on without a check. */
+            abstract long nextCheck(int slot);
+
+            /** Whether the running process gives up the core now. */
+            abstract boolean yields(int slot);
+
+            /** The running process gave up the core and waits here again. */
+            void requeue(int slot) {
+                add(slot);
+            }
+
+            /** Saves the waiting processes in the order load() needs to rebuild the queue. */
+            abstract void save(DataOutput state) throws IOException;
+
+            /** Rebuilds the queue saved by save(), by a run with the given aging interval. */
+            abstract void load(DataInput state, long savedAging) throws IOException;
+        }
+
+        /** Shortest remaining time first; a shorter arrival preempts at once. */
+        class ShortestFirstQueue extends RunQueue {
+            final SlotHeap ready = new SlotHeap(firstHeap);
+
+            int size() {
+                return ready.size();
+            }
+
+            void add(int slot) {
+                ready.add(slot, remaining[slot], id[slot]);
+            }
+
+            int poll() {
+                return ready.poll();
+            }
+
+            int removeForMigration() {
+                return ready.removeLast();
+            }
+
+            long nextCheck(int slot) {
+                return Long.MAX_VALUE;  // Only an arrival can preempt, and it wakes the core
+            }
+
+            boolean yields(int slot) {
+                int best = ready.peek();
+                return best != -1 && (remaining[best] < remaining[slot]
+                        || (remaining[best] == remaining[slot] && id[best] < id[slot]));
+            }
+
+            void save(DataOutput state) throws IOException {
+                state.writeInt(ready.size());
+                for (int i = 0; i < ready.size(); i++) saveProcess(state, ready.slotAt(i));
+            }
+
+            void load(DataInput state, long savedAging) throws IOException {
+                for (int count = state.readInt(); count > 0; count--) add(loadProcess(state));
+            }
+        }
+
+        /** FIFO; the running process goes to the back after each quantum. */
+        class RoundRobinQueue extends RunQueue {
+            final SlotDeque ready = new SlotDeque();
+            int used;
+
+            int size() {
+                return ready.size;
+            }
+
+            void add(int slot) {
+                ready.addLast(slot);
+            }
+
+            int poll() {
+                return ready.pollFirst();
+            }
+
+            int removeForMigration() {
+                return ready.pollLast();
+            }
+
+            void start(int slot) {
+                used = 0;
+            }
+
+            void ran(int units) {
+                used += units;
+            }
+
+            long nextCheck(int slot) {
+                return (long) time + parameter - used;
+            }
+
+            boolean yields(int slot) {
+                return used >= parameter;
+            }
+
+            void save(DataOutput state) throws IOException {
+                state.writeInt(used);
+                ready.save(state);
+            }
+
+            void load(DataInput state, long savedAging) throws IOException {
+                used = state.readInt();
+                for (int count = state.readInt(); count > 0; count--) add(loadProcess(state));
+            }
+        }
+
+        /**
+         * Priority with aging, as in PriorityScheduler: a process waiting since time W
+         * with priority p has key W + p * aging (see AgingKeys), its effective priority
+         * only depends on the key, and the queue is an OrderedMinTree so the best
+         * process (lowest effective priority, then earliest arrival) and the exact time
+         * aging lets one overtake the running process are found in O(log n). The running
+         * process keeps the priority it started with, and ages again from it when preempted.
+         */
+        class AgingQueue extends RunQueue {
+            final OrderedMinTree ready = new OrderedMinTree(treeNodes);
+            int runningPriority;
+
+            int size() {
+                return ready.size();
+            }
+
+            void add(int slot) {
+                ready.insert(slot, id[slot], waitKey[slot]);
+            }
+
+            int poll() {
+                int best = best();
+                if (best != -1) ready.remove(best);
+                return best;
+            }
+
+            int removeForMigration() {
+                int slot = ready.anySlot();
+                if (slot != -1) ready.remove(slot);
+                return slot;
+            }
+
+            void start(int slot) {
+                runningPriority = effectivePriority(waitKey[slot]);
+            }
+
+            // Earlier arrivals win ties, so they only need to reach the running priority;
+            // later ones need to get one level better
+            long nextCheck(int slot) {
+                if (aging == 0) return Long.MAX_VALUE;
+                long earliest = Long.MAX_VALUE;
+                long before = ready.minBefore(id[slot]);
+                if (before != OrderedMinTree.EMPTY && runningPriority >= 1) {
+                    earliest = before - runningPriority * aging;
+                }
+                long after = ready.minAfter(id[slot]);
+                if (after != OrderedMinTree.EMPTY && runningPriority - 1 >= 1) {
+                    earliest = Math.min(earliest, after - (runningPriority - 1) * aging);
+                }
+                return earliest == Long.MAX_VALUE ? earliest : Math.max(time + 1L, earliest);
+            }
+
+            boolean yields(int slot) {
+                int best = best();
+                if (best == -1) return false;
+                int priority = effectivePriority(waitKey[best]);
+                return priority < runningPriority || (priority == runningPriority && id[best] < id[slot]);
+            }
+
+            void requeue(int slot) {
+                waitKey[slot] = AgingKeys.keyOf(runningPriority, time, aging);
+                add(slot);
+            }
+
+            // Lowest effective priority, then earliest arrival among the processes sharing it
+            int best() {
+                if (ready.isEmpty()) return -1;
+                int priority = effectivePriority(ready.min());
+                return ready.firstAtMost(AgingKeys.keyBound(priority, time, aging));
+            }
+
+            int effectivePriority(long key) {
+                return AgingKeys.effectivePriority(key, time, aging);
+            }
+
+            void save(DataOutput state) throws IOException {
+                state.writeInt(runningPriority);
+                int[] slots = ready.slots();
+                state.writeInt(slots.length);
+                for (int slot : slots) saveProcess(state, slot);
+            }
+
+            void load(DataInput state, long savedAging) throws IOException {
+                runningPriority = state.readInt();
+                for (int count = state.readInt(); count > 0; count--) {
+                    int slot = loadProcess(state);
+                    if (savedAging != aging) {
+                        int priority = AgingKeys.effectivePriority(waitKey[slot], time, savedAging);
+                        waitKey[slot] = AgingKeys.keyOf(priority, time, aging);
+                    }
+                    add(slot);
+                }
+            }
+        }
+
+        /**
+         * AG: FCFS for the first quarter of the quantum, then non-preemptive priority
+         * for the next quarter (after a check for a better priority), then preemptive
+         * SJF. Quantum updates and queue placement follow AGScheduler. The list keeps
+         * the queue order, and two heaps answer the best-priority and shortest-job
+         * checks without scanning it, breaking ties by queue position like the scans
+         * in AGScheduler do.
+         */
+        class AGQueue extends RunQueue {
+            final SlotDeque ready = new SlotDeque();
+            final SlotHeap byPriority = new SlotHeap(firstHeap);
+            final SlotHeap byRemaining = new SlotHeap(secondHeap);
+            long frontPosition = 0, backPosition = 0;  // Queue positions only grow outwards
+            int used, fullQuantum, fcfsEnd, priorityEnd;
+            boolean priorityChecked;
+            int scenario, preemptor;
+
+            int size() {
+                return ready.size;
+            }
+
+            void add(int slot) {
+                ready.addLast(slot);
+                index(slot, backPosition++);
+            }
+
+            void addFirst(int slot) {
+                ready.addFirst(slot);
+                index(slot, --frontPosition);
+            }
+
+            void index(int slot, long position) {
+                byPriority.add(slot, in.getPriority(slot), position);
+                byRemaining.add(slot, remaining[slot], position);
+            }
+
+            int poll() {
+                return unindex(ready.pollFirst());
+            }
+
+            int removeForMigration() {
+                return unindex(ready.pollLast());
+            }
+
+            int unindex(int slot) {
+                if (slot != -1) {
+                    byPriority.remove(slot);
+                    byRemaining.remove(slot);
+                }
+                return slot;
+            }
+
+            void start(int slot) {
+                used = 0;
+                fullQuantum = quantum[slot];
+                fcfsEnd = (int) Math.ceil(fullQuantum * 0.25);
+                priorityEnd = fcfsEnd + (int) Math.ceil(fullQuantum * 0.25);
+                priorityChecked = false;
+                preemptor = -1;
+            }
+
+            void ran(int units) {
+                used += units;
+            }
+
+            long nextCheck(int slot) {
+                if (used < fcfsEnd) return (long) time + fcfsEnd - used;
+                if (used < priorityEnd) return (long) time + priorityEnd - used;
+                return (long) time + fullQuantum - used;  // Arrivals that could preempt wake the core
+            }
+
+            boolean yields(int slot) {
+                if (used < fcfsEnd) return false;
+                if (!priorityChecked) {
+                    priorityChecked = true;
+                    int best = byPriority.peek();
+                    if (best != -1 && in.getPriority(best) < in.getPriority(slot)) {
+                        scenario = PRIORITY_PREEMPTED;
+                        preemptor = best;
+                        return true;
+                    }
+                }
+                if (used < priorityEnd) return false;
+                int shortest = byRemaining.peek();
+                if (shortest != -1 && remaining[shortest] < remaining[slot]) {
+                    scenario = SJF_PREEMPTED;
+                    preemptor = shortest;
+                    return true;
+                }
+                if (used >= fullQuantum) {
+                    scenario = EXHAUSTED;
+                    preemptor = -1;
+                    return true;
+                }
+                return false;
+            }
+
+            void requeue(int slot) {
+                int unused = quantum[slot] - used;
+                switch (scenario) {
+                    case PRIORITY_PREEMPTED -> quantum[slot] += (int) Math.ceil(unused / 2.0);
+                    case SJF_PREEMPTED -> quantum[slot] += unused;
+                    default -> quantum[slot] += 2;
+                }
+                quantumHistory.add(slot, quantum[slot]);
+
+                // Back of the queue; the process that caused the preemption goes to the front
+                add(slot);
+                if (preemptor != -1) {
+                    ready.remove(preemptor);
+                    unindex(preemptor);
+                    addFirst(preemptor);
+                }
+            }
+
+            // Heap ties only depend on the order of positions, so re-adding the queue in
+            // order gives the same picks
+            void save(DataOutput state) throws IOException {
+                state.writeInt(used);
+                state.writeInt(fullQuantum);
+                state.writeInt(fcfsEnd);
+                state.writeInt(priorityEnd);
+                state.writeBoolean(priorityChecked);
+                state.writeInt(scenario);
+                state.writeInt(preemptor);
+                ready.save(state);
+            }
+
+            void load(DataInput state, long savedAging) throws IOException {
+                used = state.readInt();
+                fullQuantum = state.readInt();
+                fcfsEnd = state.readInt();
+                priorityEnd = state.readInt();
+                priorityChecked = state.readBoolean();
+                scenario = state.readInt();
+                preemptor = state.readInt();
+                for (int count = state.readInt(); count > 0; count--) add(loadProcess(state));
+            }
+        }
+
+        /** Deque of slots linked through next/prev. */
+        class SlotDeque {
+            int head = -1, tail = -1, size = 0;
+
+            void addLast(int slot) {
+                next[slot] = -1;
+                prev[slot] = tail;
+                if (tail == -1) head = slot;
+                else next[tail] = slot;
+                tail = slot;
+                size++;
+            }
+
+            void addFirst(int slot) {
+                prev[slot] = -1;
+                next[slot] = head;
+                if (head == -1) tail = slot;
+                else prev[head] = slot;
+                head = slot;
+                size++;
+            }
+
+            void remove(int slot) {
+                int before = prev[slot], after = next[slot];
+                if (before == -1) head = after;
+                else next[before] = after;
+                if (after == -1) tail = before;
+                else prev[after] = before;
+                size--;
+            }
+
+            int pollFirst() {
+                int slot = head;
+                if (slot != -1) remove(slot);
+                return slot;
+            }
+
+            int pollLast() {
+                int slot = tail;
+                if (slot != -1) remove(slot);
+                return slot;
+            }
+
+            void save(DataOutput state) throws IOException {
+                state.writeInt(size);
+                for (int slot = head; slot != -1; slot = next[slot]) saveProcess(state, slot);
+            }
+        }
+    }
+
+    /**
+     * The generator behind SplittableRandom (SplitMix64), with its bounded nextInt, so
+     * that its state can go into a snapshot. Draws the same numbers as a
+     * SplittableRandom with the same seed.
+     */
+    private static class SplitMix {
+        private static final long GAMMA = 0x9e3779b97f4a7c15L;
+        long seed;
+
+        SplitMix(long seed) {
+            this.seed = seed;
+        }
+
+        int nextInt() {
+            long z = seed += GAMMA;
+            z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+            return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+        }
+
+        /** Uniform in [0, bound), rejecting the values that would bias the remainder. */
+        int nextInt(int bound) {
+            int r = nextInt();
+            int m = bound - 1;
+            if ((bound & m) == 0) return r & m;
+            for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1) {
+            }
+            return r;
+        }
+    }
+
+    /**
+     * Per-core values in a tournament tree, for the index of the smallest and
+     * largest value (lowest index on ties) in O(1) after O(log cores) updates.
+     */
+    private static class LoadTree {
+        private final int leaves;
+        private final int[] value;
+        private final int[] min, max;  // Core index per node, -1 under padding leaves
+
+        LoadTree(int cores) {
+            int size = 1;
+            while (size < cores) size <<= 1;
+            this.leaves = size;
+            this.value = new int[cores];
+            this.min = new int[2 * size];
+            this.max = new int[2 * size];
+            for (int i = 0; i < size; i++) {
+                min[size + i] = max[size + i] = i < cores ? i : -1;
+            }
+            for (int node = size - 1; node >= 1; node--) {
+                pull(node);
+            }
+        }
+
+        int value(int core) {
+            return value[core];
+        }
+
+        void set(int core, int v) {
+            if (value[core] == v) return;
+            value[core] = v;
+            for (int node = (leaves + core) >>> 1; node >= 1; node >>>= 1) {
+                pull(node);
+            }
+        }
+
+        int minIndex() {
+            return min[1];
+        }
+
+        int maxIndex() {
+            return max[1];
+        }
+
+        private void pull(int node) {
+            int a = min[2 * node], b = min[2 * node + 1];
+            min[node] = b == -1 || (a != -1 && value[a] <= value[b]) ? a : b;
+            a = max[2 * node];
+            b = max[2 * node + 1];
+            max[node] = b == -1 || (a != -1 && value[a] >= value[b]) ? a : b;
+        }
+    }
+}
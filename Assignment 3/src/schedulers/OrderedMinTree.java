@@ -0,0 +1,207 @@
+package schedulers;
+
+import java.util.Arrays;
+
+/**
+ * Set of slots ordered by a sequence number, where every slot also carries a
+ * long key. Answers, in O(log n): the smallest key overall, the smallest key
+ * before or after a sequence number, and the earliest slot (by sequence number)
+ * whose key is at most a bound.
+ *
+ * Implemented as a treap over slot-indexed arrays, with each node also storing
+ * the minimum key of its subtree. Node weights are a hash of the sequence
+ * number, so runs are reproducible.
+ */
+class OrderedMinTree {
+    static final long EMPTY = Long.MAX_VALUE;
+
+    /**
+     * Node storage, indexed by slot. Several trees can share one as long as a slot
+     * is in at most one of them at a time (e.g. one tree per core).
+     */
+    static class Nodes {
+        private int[] left = new int[0];
+        private int[] right = new int[0];
+        private int[] weight = new int[0];
+        private long[] seq = new long[0];
+        private long[] key = new long[0];
+        private long[] min = new long[0];
+
+        /** Makes room for slots below {@code slots}. */
+        void ensureCapacity(int slots) {
+            if (slots <= left.length) return;
+            int capacity = Math.max(slots, left.length * 2);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            seq = Arrays.copyOf(seq, capacity);
+            key = Arrays.copyOf(key, capacity);
+            min = Arrays.copyOf(min, capacity);
+        }
+    }
+
+    private final Nodes nodes;
+    private int root = -1;
+    private int size = 0;
+
+    // Results of split()
+    private int splitLeft, splitRight;
+
+    OrderedMinTree() {
+        this(new Nodes());
+    }
+
+    OrderedMinTree(Nodes nodes) {
+        this.nodes = nodes;
+    }
+
+    /** Makes room for slots below {@code slots}. */
+    void ensureCapacity(int slots) {
+        nodes.ensureCapacity(slots);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Some slot in the tree (the cheapest to find), or -1 when empty. */
+    int anySlot() {
+        return root;
+    }
+
+    void insert(int slot, long sequence, long k) {
+        nodes.left[slot] = nodes.right[slot] = -1;
+        nodes.weight[slot] = Long.hashCode(sequence * 0x9E3779B97F4A7C15L);
+        nodes.seq[slot] = sequence;
+        nodes.key[slot] = k;
+        nodes.min[slot] = k;
+        split(root, sequence);
+        int before = splitLeft, after = splitRight;
+        root = merge(merge(before, slot), after);
+        size++;
+    }
+
+    /** Removes a slot that is currently in the tree. */
+    void remove(int slot) {
+        split(root, nodes.seq[slot]);
+        int before = splitLeft;
+        split(splitRight, nodes.seq[slot] + 1);
+        root = merge(before, splitRight);
+        size--;
+    }
+
+    /** Key of a slot that is currently in the tree. */
+    long key(int slot) {
+        return nodes.key[slot];
+    }
+
+    long min() {
+        return minOf(root);
+    }
+
+    /** Smallest key among slots with a sequence number below {@code sequence}. */
+    long minBefore(long sequence) {
+        long best = EMPTY;
+        for (int t = root; t != -1; ) {
+            if (nodes.seq[t] < sequence) {
+                best = Math.min(best, Math.min(nodes.key[t], minOf(nodes.left[t])));
+                t = nodes.right[t];
+            } else {
+                t = nodes.left[t];
+            }
+        }
+        return best;
+    }
+
+    /** Smallest key among slots with a sequence number above {@code sequence}. */
+    long minAfter(long sequence) {
+        long best = EMPTY;
+        for (int t = root; t != -1; ) {
+            if (nodes.seq[t] > sequence) {
+                best = Math.min(best, Math.min(nodes.key[t], minOf(nodes.right[t])));
+                t = nodes.left[t];
+            } else {
+                t = nodes.right[t];
+            }
+        }
+        return best;
+    }
+
+    /** Slot with the lowest sequence number whose key is at most {@code bound}, or -1. */
+    int firstAtMost(long bound) {
+        if (minOf(root) > bound) return -1;
+        int t = root;
+        while (true) {
+            if (minOf(nodes.left[t]) <= bound) {
+                t = nodes.left[t];
+            } else if (nodes.key[t] <= bound) {
+                return t;
+            } else {
+                t = nodes.right[t];
+            }
+        }
+    }
+
+    /**
+     * Slots in the tree, by sequence number. A treap's shape only depends on its
+     * sequence numbers and weights, so inserting them again in any order rebuilds
+     * the same tree.
+     */
+    int[] slots() {
+        int[] slots = new int[size];
+        collect(root, slots, 0);
+        return slots;
+    }
+
+    private int collect(int t, int[] slots, int at) {
+        if (t == -1) return at;
+        at = collect(nodes.left[t], slots, at);
+        slots[at++] = t;
+        return collect(nodes.right[t], slots, at);
+    }
+
+    private long minOf(int t) {
+        return t == -1 ? EMPTY : nodes.min[t];
+    }
+
+    private void pull(int t) {
+        nodes.min[t] = Math.min(nodes.key[t], Math.min(minOf(nodes.left[t]), minOf(nodes.right[t])));
+    }
+
+    // Splits t into sequence numbers below s (splitLeft) and the rest (splitRight)
+    private void split(int t, long s) {
+        if (t == -1) {
+            splitLeft = splitRight = -1;
+            return;
+        }
+        if (nodes.seq[t] < s) {
+            split(nodes.right[t], s);
+            nodes.right[t] = splitLeft;
+            pull(t);
+            splitLeft = t;
+        } else {
+            split(nodes.left[t], s);
+            nodes.left[t] = splitRight;
+            pull(t);
+            splitRight = t;
+        }
+    }
+
+    // Joins two trees where every sequence number in a is below those in b
+    private int merge(int a, int b) {
+        if (a == -1) return b;
+        if (b == -1) return a;
+        if (nodes.weight[a] > nodes.weight[b]) {
+            nodes.right[a] = merge(nodes.right[a], b);
+            pull(a);
+            return a;
+        }
+        nodes.left[b] = merge(a, nodes.left[b]);
+        pull(b);
+        return b;
+    }
+}
@@ -1,209 +1,258 @@
 package schedulers;
 
-import java.util.*;
-import models.Process;
-import models.SchedulerResult;
-
-public class PriorityScheduler implements Scheduler {
-
-    class ProcessInfo {
-        Process process;
-        int remainingTime;
-        int completionTime;
-        int waitingTime;
-        int priority;
-        boolean added;
-        int order;
-
-        ProcessInfo(Process p, int order) {
-            this.process = p;
-            this.remainingTime = p.getBurstTime();
-            this.completionTime = 0;
-            this.waitingTime = 0;
-            this.priority = p.getPriority();
-            this.added = false;
-            this.order = order;
-        }
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
 
-        boolean isDone() {
-            return remainingTime == 0;
-        }
+/**
+ * Preemptive priority scheduling with aging.
+ *
+ * A waiting process gains one priority level (down to 1) for every agingInterval
+ * units it waits, and its counter restarts whenever it runs. Instead of updating
+ * counters every tick, each waiting process keeps the time it started waiting, so
+ * its effective priority at time T is
+ *   max(1, priority - floor((T - waitStart) / agingInterval))
+ *     = max(1, ceil((key - T) / agingInterval))   with key = waitStart + priority * agingInterval.
+ * Effective priority is monotonic in that key ({@link AgingKeys}), so waiting
+ * processes live in an OrderedMinTree keyed by it (ordered by arrival sequence for
+ * the tie-breaks), and the simulation only stops at arrivals, completions, context
+ * switches and the exact time aging lets a waiting process overtake the running one.
+ *
+ * A process is dispatched when it starts running. One that is switched in but loses
+ * the CPU to a better process during the switch still gets an execution order entry,
+ * through onPreemptedDuringSwitch, without counting as started or preempted. Every
+ * process that runs is listed, including a first process that finishes within its
+ * first tick, which the original tick-by-tick loop left out.
+ */
+public class PriorityScheduler extends BaseScheduler {
+
+    public PriorityScheduler() {
+        super("Preemptive Priority Scheduling (with Aging)");
     }
 
     @Override
-    public SchedulerResult schedule(List<Process> processes, int contextSwitchTime, int agingInterval) {
-        SchedulerResult result = new SchedulerResult("Preemptive Priority Scheduling (with Aging)");
+    Engine engine(ArrivalSource in, int contextSwitchTime, int agingInterval, SchedulerEventSink out,
+                  SnapshotWriter snapshots) {
+        return new Simulation(in, out, contextSwitchTime, agingInterval, snapshots);
+    }
 
-        Map<String, ProcessInfo> processMap = new HashMap<>();
-        int idx = 0;
-        for (Process p : processes) {
-            processMap.put(p.getName(), new ProcessInfo(p, idx++));
-        }
+    /**
+     * State of one run. Per-process state is indexed by the slot the ArrivalSource gave it.
+     */
+    private static class Simulation implements Engine {
+        final ArrivalSource in;
+        final SchedulerEventSink out;
+        final int contextSwitchTime;
+        final long aging;  // 0 means no aging, and the key is just the priority
+        final SnapshotWriter snapshots;
+        int[] remaining = new int[0];
+        long[] id = new long[0];  // Arrival sequence: earlier arrival, then input order
+        long nextId = 0;
+        final OrderedMinTree waiting = new OrderedMinTree();
 
         int time = 0;
-        int done = 0;
-        ProcessInfo CurrentProcess = null;
-        ProcessInfo PreviousProcess = null;
-
-        while (done < processes.size()) {
-            
-            // Check for new arrivals
-            for (ProcessInfo pi : processMap.values()) {
-                if (!pi.added && pi.process.getArrivalTime() == time) {
-                    pi.added = true;
+        int current = -1;          // Slot holding (or switching onto) the CPU
+        long previous = -1;        // ID of the process that had the CPU before
+        boolean running = false;   // current has passed its preemption check and is out of the tree
+        int runningPriority = 0;   // Priority of current while it runs (it does not age while running)
+
+        Simulation(ArrivalSource in, SchedulerEventSink out, int contextSwitchTime, int agingInterval,
+                   SnapshotWriter snapshots) {
+            this.in = in;
+            this.out = out;
+            this.contextSwitchTime = contextSwitchTime;
+            this.aging = Math.max(0, agingInterval);
+            this.snapshots = snapshots;
+        }
+
+        public void run() {
+            while (current != -1 || !waiting.isEmpty() || in.hasNext()) {
+                if (time >= snapshots.next) snapshots.take(time, this);
+
+                // Check for new arrivals
+                while (in.hasNext() && in.peekArrivalTime() <= time) {
+                    int slot = in.next();
+                    if (slot >= remaining.length) grow(Math.max(in.slotCount(), remaining.length * 2));
+                    remaining[slot] = in.getBurstTime(slot);
+                    id[slot] = nextId++;
+                    if (remaining[slot] == 0) {
+                        out.onCompletion(in.getArrivalTime(slot), id[slot],
+                                BaseScheduler.resultOf(in, slot, in.getArrivalTime(slot)));
+                        in.release(slot);
+                    } else {
+                        int priority = in.getPriority(slot);
+                        waiting.insert(slot, id[slot], AgingKeys.keyOf(priority, in.getArrivalTime(slot), aging));
+                    }
                 }
-            }
-            
-            // Update execution order
-            if (CurrentProcess != null && (result.executionOrder.isEmpty() || 
-                !result.executionOrder.get(result.executionOrder.size() - 1).equals(CurrentProcess.process.getName()))) {
-                result.executionOrder.add(CurrentProcess.process.getName());
-            }
-            
-            // Pick a process if nothing is running
-            if (CurrentProcess == null) {
-                CurrentProcess = GetBestProcess(processMap, time);
-                
-                if (CurrentProcess != null) {
-                    if (PreviousProcess != null && !PreviousProcess.process.getName().equals(CurrentProcess.process.getName()) && time != 0) {
-                        doContextSwitch(processMap, CurrentProcess, contextSwitchTime, agingInterval, time);
-                        time += contextSwitchTime;
+
+                // Pick a process if nothing is running
+                if (current == -1) {
+                    current = GetBestProcess(time);
+
+                    if (current == -1) {
+                        if (!in.hasNext()) break;
+                        time = in.peekArrivalTime(); // CPU idle until the next arrival
                         continue;
                     }
-                    PreviousProcess = CurrentProcess;
-                }
-            }
-            
-            // Check for preemption
-            if (CurrentProcess != null) {
-                ProcessInfo BetterPriority = GetBestProcess(processMap, time);
-                
-                if (BetterPriority != null && !BetterPriority.process.getName().equals(CurrentProcess.process.getName())) {
-                    if (BetterPriority.priority < CurrentProcess.priority ||
-                        (BetterPriority.priority == CurrentProcess.priority && BetterPriority.process.getArrivalTime() < CurrentProcess.process.getArrivalTime()) ||
-                        (BetterPriority.priority == CurrentProcess.priority && BetterPriority.process.getArrivalTime() == CurrentProcess.process.getArrivalTime() &&
-                         BetterPriority.order < CurrentProcess.order)) {
-                        
-                        PreviousProcess = CurrentProcess;
-                        CurrentProcess = BetterPriority;
-                        
-                        doContextSwitch(processMap, CurrentProcess, contextSwitchTime, agingInterval, time);
-                        time += contextSwitchTime;
+                    if (previous != -1 && previous != id[current] && time != 0) {
+                        time = contextSwitch(time);
                         continue;
                     }
+                    previous = id[current];
                 }
-                CurrentProcess.waitingTime = 0;
-            }
-            
-            // Execute
-            if (CurrentProcess != null) {
-                CurrentProcess.remainingTime--;
-                
-                if (CurrentProcess.isDone()) {
-                    CurrentProcess.completionTime = time + 1;
-                    done++;
-                    PreviousProcess = CurrentProcess;
-                    CurrentProcess = null;
+
+                // Check for preemption
+                if (!running) {
+                    // Just switched in: it still ages like a waiting process until it starts running
+                    int better = GetBestProcess(time);
+                    if (better != current) {
+                        out.onPreemptedDuringSwitch(time, id[current], in.getName(current));
+                        previous = id[current];
+                        current = better;
+                        time = contextSwitch(time);
+                        continue;
+                    }
+                    runningPriority = AgingKeys.effectivePriority(waiting.key(current), time, aging);
+                    waiting.remove(current);
+                    running = true;
+                    out.onDispatch(time, id[current], in.getName(current));
+                } else {
+                    int better = GetBestProcess(time);
+                    if (better != -1 && beats(better, AgingKeys.effectivePriority(waiting.key(better), time, aging),
+                            current, runningPriority)) {
+                        // The preempted process starts waiting (and aging) from now
+                        waiting.insert(current, id[current], AgingKeys.keyOf(runningPriority, time, aging));
+                        running = false;
+                        previous = id[current];
+                        current = better;
+                        time = contextSwitch(time);
+                        continue;
+                    }
                 }
-            }
-            
-            // Update waiting times
-            for (ProcessInfo pi : processMap.values()) {
-                if (pi.added && !pi.isDone() && 
-                    (CurrentProcess == null || !pi.process.getName().equals(CurrentProcess.process.getName()))) {
-                    pi.waitingTime++;
+
+                // Execute until the process finishes, something arrives, or aging lets a
+                // waiting process overtake it
+                long until = (long) time + remaining[current];
+                if (in.hasNext()) until = Math.min(until, in.peekArrivalTime());
+                until = Math.min(until, nextAgingPreemption(current, runningPriority));
+                int executed = (int) (until - time);
+
+                remaining[current] -= executed;
+                time += executed;
+
+                if (remaining[current] == 0) {
+                    out.onCompletion(time, id[current], BaseScheduler.resultOf(in, current, time));
+                    in.release(current);
+                    previous = id[current];
+                    current = -1;
+                    running = false;
                 }
             }
-            
-            time++;
-            CheckIfAgingAppropriate(processMap, agingInterval);
         }
 
-        // Calculate metrics
-        double totalWaiting = 0;
-        double totalTurnaround = 0;
-        
-        for (Process p : processes) {
-            ProcessInfo pi = processMap.get(p.getName());
-            int turnaroundTime = pi.completionTime - p.getArrivalTime();
-            int waitingTime = turnaroundTime - p.getBurstTime();
-            
-            totalWaiting += waitingTime;
-            totalTurnaround += turnaroundTime;
-
-            result.processResults.add(new SchedulerResult.ProcessResult(
-                p.getName(), p.getArrivalTime(), p.getBurstTime(), p.getPriority(),
-                waitingTime, turnaroundTime
-            ));
+        void grow(int capacity) {
+            remaining = Arrays.copyOf(remaining, capacity);
+            id = Arrays.copyOf(id, capacity);
+            waiting.ensureCapacity(capacity);
         }
 
-        result.avgWaitingTime = totalWaiting / processes.size();
-        result.avgTurnaroundTime = totalTurnaround / processes.size();
+        public void save(DataOutput state) throws IOException {
+            state.writeInt(time);
+            state.writeLong(nextId);
+            state.writeInt(current);
+            state.writeLong(previous);
+            state.writeBoolean(running);
+            state.writeInt(runningPriority);
+            if (running) {
+                saveProcess(state, current);
+            }
+            int[] slots = waiting.slots();
+            state.writeInt(slots.length);
+            for (int slot : slots) {
+                saveProcess(state, slot);
+                state.writeLong(waiting.key(slot));
+            }
+        }
 
-        return result;
-    }
+        void saveProcess(DataOutput state, int slot) throws IOException {
+            state.writeInt(slot);
+            state.writeInt(remaining[slot]);
+            state.writeLong(id[slot]);
+        }
 
-    private void doContextSwitch(Map<String, ProcessInfo> processMap, ProcessInfo next,
-                                 int contextSwitchTime, int agingInterval, int currentTime) {
-        for (int i = 0; i < contextSwitchTime; i++) {
-            if (next != null) {
-                next.waitingTime++;
-            }
-            
-            for (ProcessInfo pi : processMap.values()) {
-                if (pi.added && !pi.isDone() && 
-                    (next == null || !pi.process.getName().equals(next.process.getName()))) {
-                    pi.waitingTime++;
-                }
+        // With another aging interval a key means something else, so a fork gives every
+        // waiting process the priority it has aged to so far, and starts it aging again
+        public void load(DataInput state, int savedParameter) throws IOException {
+            grow(in.slotCount());
+            long savedAging = Math.max(0, savedParameter);
+            time = state.readInt();
+            nextId = state.readLong();
+            current = state.readInt();
+            previous = state.readLong();
+            running = state.readBoolean();
+            runningPriority = state.readInt();
+            if (running) {
+                loadProcess(state);
             }
-            
-            for (ProcessInfo pi : processMap.values()) {
-                if (!pi.added && pi.process.getArrivalTime() == (currentTime + i + 1)) {
-                    pi.added = true;
+            for (int count = state.readInt(); count > 0; count--) {
+                int slot = loadProcess(state);
+                long key = state.readLong();
+                if (savedAging != aging) {
+                    key = AgingKeys.keyOf(AgingKeys.effectivePriority(key, time, savedAging), time, aging);
                 }
+                waiting.insert(slot, id[slot], key);
             }
-            
-            CheckIfAgingAppropriate(processMap, agingInterval);
         }
-    }
 
-    private void CheckIfAgingAppropriate(Map<String, ProcessInfo> processMap, int agingInterval) {
-        if (agingInterval == 0) return;
-        
-        for (ProcessInfo pi : processMap.values()) {
-            if (pi.added && !pi.isDone() && pi.waitingTime >= agingInterval) {
-                pi.priority = Math.max(1, pi.priority - 1);
-                pi.waitingTime = 0;
+        int loadProcess(DataInput state) throws IOException {
+            int slot = state.readInt();
+            remaining[slot] = state.readInt();
+            id[slot] = state.readLong();
+            return slot;
+        }
+
+        private int contextSwitch(int time) {
+            if (contextSwitchTime > 0) {
+                out.onContextSwitch(time, time + contextSwitchTime);
             }
+            return time + contextSwitchTime;
         }
-    }
 
-    private ProcessInfo GetBestProcess(Map<String, ProcessInfo> processMap, int currentTime) {
-        ProcessInfo best = null;
+        // True if process a (with priority pa) goes before process b (with priority pb):
+        // lower priority value, then earlier arrival, then input order (the ID covers both)
+        private boolean beats(int a, int pa, int b, int pb) {
+            return pa < pb || (pa == pb && id[a] < id[b]);
+        }
 
-        for (ProcessInfo pi : processMap.values()) {
-            if (pi.added && pi.process.getArrivalTime() <= currentTime && !pi.isDone()) {
-                if (best == null) {
-                    best = pi;
-                } else {
-                    int curPriority = pi.priority;
-                    int bestPriority = best.priority;
-                    
-                    if (curPriority < bestPriority) {
-                        best = pi;
-                    } else if (curPriority == bestPriority) {
-                        if (pi.process.getArrivalTime() < best.process.getArrivalTime()) {
-                            best = pi;
-                        } else if (pi.process.getArrivalTime() == best.process.getArrivalTime()) {
-                            if (pi.order < best.order) {
-                                best = pi;
-                            }
-                        }
-                    }
-                }
-            }
+        /**
+         * Best waiting process at the given time, or -1: the lowest effective priority,
+         * then the earliest arrival among the processes sharing it.
+         */
+        private int GetBestProcess(int time) {
+            if (waiting.isEmpty()) return -1;
+            int best = AgingKeys.effectivePriority(waiting.min(), time, aging);
+            return waiting.firstAtMost(AgingKeys.keyBound(best, time, aging));
         }
 
-        return best;
+        /**
+         * Earliest time at which some waiting process ages enough to beat the running one.
+         * Earlier arrivals win ties, so they only need to reach its priority; later ones
+         * need to get one level better.
+         */
+        private long nextAgingPreemption(int current, int priority) {
+            if (aging == 0) return Long.MAX_VALUE;
+            long earliest = Long.MAX_VALUE;
+
+            long before = waiting.minBefore(id[current]);
+            if (before != OrderedMinTree.EMPTY && priority >= 1) {
+                earliest = before - priority * aging;
+            }
+            long after = waiting.minAfter(id[current]);
+            if (after != OrderedMinTree.EMPTY && priority - 1 >= 1) {
+                earliest = Math.min(earliest, after - (priority - 1) * aging);
+            }
+            return earliest;
+        }
     }
 }
@@ -0,0 +1,37 @@
+package schedulers;
+
+import java.util.Arrays;
+
+/**
+ * AG quantum histories by slot, each in a growable int array. A slot keeps its array
+ * when its process finishes, so the next process given the slot reuses it and a
+ * streaming run allocates only for the histories it hands out.
+ */
+class QuantumHistories {
+    private int[][] values = new int[0][];
+    private int[] length = new int[0];
+
+    /** A process with this initial quantum now holds the slot. */
+    void start(int slot, int quantum) {
+        if (slot >= values.length) {
+            int capacity = Math.max(slot + 1, values.length * 2);
+            values = Arrays.copyOf(values, capacity);
+            length = Arrays.copyOf(length, capacity);
+        }
+        if (values[slot] == null) values[slot] = new int[4];
+        length[slot] = 0;
+        add(slot, quantum);
+    }
+
+    void add(int slot, int quantum) {
+        if (length[slot] == values[slot].length) {
+            values[slot] = Arrays.copyOf(values[slot], length[slot] * 2);
+        }
+        values[slot][length[slot]++] = quantum;
+    }
+
+    /** Copy of the slot's history so far. */
+    int[] finish(int slot) {
+        return Arrays.copyOf(values[slot], length[slot]);
+    }
+}
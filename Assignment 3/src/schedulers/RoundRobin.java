@@ -1,111 +1,152 @@
 package schedulers;
 
-import models.Process;
-import models.SchedulerResult;
-import java.util.*;
-
-public class RoundRobin implements Scheduler {
-
-    class ProcessInfo {
-        Process process;
-        int remainingTime;
-        int completionTime;
-        int waitingTime;
-        int turnaroundTime;
-
-        ProcessInfo(Process p) {
-            this.process = p;
-            this.remainingTime = p.getBurstTime();
-        }
-
-        boolean isCompleted() {
-            return remainingTime == 0;
-        }
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Round Robin with a fixed quantum.
+ *
+ * Processes join the ready queue in arrival order, and processes that arrive at
+ * the same time join it in input order, as in every other scheduler here. The
+ * original version selection-sorted the list by arrival time, and that sort could
+ * swap equal arrivals when the input was not already sorted (for A and B at 1 and
+ * C at 0 it queued B before A). That order came from how the sort happened to
+ * work rather than from any rule, so it is not kept. Arrivals during a quantum
+ * join the queue ahead of the process it preempts.
+ */
+public class RoundRobin extends BaseScheduler {
+
+    public RoundRobin() {
+        super("Round Robin");
     }
 
     @Override
-    public SchedulerResult schedule(List<Process> processes, int contextSwitchTime, int quantum) {
-        SchedulerResult result = new SchedulerResult("Round Robin");
+    Engine engine(ArrivalSource in, int contextSwitchTime, int quantum, SchedulerEventSink out,
+                  SnapshotWriter snapshots) {
+        if (quantum < 1) throw new IllegalArgumentException("Round Robin quantum must be at least 1, got " + quantum);
+        return new Simulation(in, out, contextSwitchTime, quantum, snapshots);
+    }
 
-        Map<String, ProcessInfo> processMap = new HashMap<>();
-        for (Process p : processes) {
-            processMap.put(p.getName(), new ProcessInfo(p));
+    /**
+     * State of one run. Per-process state is indexed by the slot the ArrivalSource gave it.
+     */
+    private static class Simulation implements Engine {
+        final ArrivalSource in;
+        final SchedulerEventSink out;
+        final int contextSwitchTime, quantum;
+        final SnapshotWriter snapshots;
+        int currentTime = 0;
+        int[] remaining = new int[0];
+        long[] id = new long[0];
+        long nextId = 0;
+
+        // Ready queue as a ring buffer of slots. It only ever holds live processes,
+        // and grows if more of them are waiting than it has room for.
+        int[] queue = new int[16];
+        int head = 0, size = 0;
+
+        Simulation(ArrivalSource in, SchedulerEventSink out, int contextSwitchTime, int quantum,
+                   SnapshotWriter snapshots) {
+            this.in = in;
+            this.out = out;
+            this.contextSwitchTime = contextSwitchTime;
+            this.quantum = quantum;
+            this.snapshots = snapshots;
         }
 
-        for (int i = 0; i < processes.size() - 1; i++) {
-            int minIdx = i;
-            for (int j = i + 1; j < processes.size(); j++) {
-                if (processes.get(j).getArrivalTime() <
-                        processes.get(minIdx).getArrivalTime()) {
-                    minIdx = j;
-                }
-            }
-            Process temp = processes.get(i);
-            processes.set(i, processes.get(minIdx));
-            processes.set(minIdx, temp);
-        }
+        public void run() {
+            while (size > 0 || in.hasNext()) {
+                if (currentTime >= snapshots.next) snapshots.take(currentTime, this);
 
-        Queue<ProcessInfo> queue = new LinkedList<>();
-        int currentTime = 0, idx = 0, completed = 0;
+                enqueueArrivals(currentTime);
 
-        while (completed < processes.size()) {
+                if (size == 0) {
+                    currentTime = in.peekArrivalTime();
+                    continue;
+                }
 
-            while (idx < processes.size() && processes.get(idx).getArrivalTime() <= currentTime) {
-                queue.add(processMap.get(processes.get(idx).getName()));
-                idx++;
-            }
+                int current = queue[head];
+                head = (head + 1) % queue.length;
+                size--;
+                out.onDispatch(currentTime, id[current], in.getName(current));
 
-            if (queue.isEmpty()) {
-                currentTime = processes.get(idx).getArrivalTime();
-                continue;
-            }
+                int exec = Math.min(quantum, remaining[current]);
+                remaining[current] -= exec;
+                currentTime += exec;
 
-            ProcessInfo current = queue.poll();
-            result.executionOrder.add(current.process.getName());
+                // Arrivals during the quantum go ahead of the preempted process
+                enqueueArrivals(currentTime);
 
-            int exec = Math.min(quantum, current.remainingTime);
-            current.remainingTime -= exec;
-            currentTime += exec;
+                if (remaining[current] == 0) {
+                    out.onCompletion(currentTime, id[current], BaseScheduler.resultOf(in, current, currentTime));
+                    in.release(current);
+                } else {
+                    enqueue(current);
+                }
 
-            while (idx < processes.size() && processes.get(idx).getArrivalTime() <= currentTime) {
-                queue.add(processMap.get(processes.get(idx).getName()));
-                idx++;
+                if (size > 0) {
+                    if (contextSwitchTime > 0) {
+                        out.onContextSwitch(currentTime, currentTime + contextSwitchTime);
+                    }
+                    currentTime += contextSwitchTime;
+                }
             }
+        }
 
-            if (current.isCompleted()) {
-                current.completionTime = currentTime;
-                current.turnaroundTime = current.completionTime - current.process.getArrivalTime();
-                current.waitingTime = current.turnaroundTime - current.process.getBurstTime();
-                completed++;
-            } else {
-                queue.add(current);
+        // Enqueues every process that has arrived by the given time in one pass
+        void enqueueArrivals(int time) {
+            while (in.hasNext() && in.peekArrivalTime() <= time) {
+                int slot = in.next();
+                if (slot >= remaining.length) grow(Math.max(in.slotCount(), remaining.length * 2));
+                remaining[slot] = in.getBurstTime(slot);
+                id[slot] = nextId++;
+                enqueue(slot);
             }
+        }
+
+        void grow(int capacity) {
+            remaining = Arrays.copyOf(remaining, capacity);
+            id = Arrays.copyOf(id, capacity);
+        }
 
-            if (!queue.isEmpty()) {
-                currentTime += contextSwitchTime;
+        void enqueue(int slot) {
+            if (size == queue.length) {
+                // Double the buffer, unrolling it so the head ends up at index 0
+                int[] bigger = new int[queue.length * 2];
+                for (int i = 0; i < size; i++) {
+                    bigger[i] = queue[(head + i) % queue.length];
+                }
+                queue = bigger;
+                head = 0;
             }
+            queue[(head + size++) % queue.length] = slot;
         }
 
-        double totalWT = 0, totalTAT = 0;
-        for (Process p : processes) {
-            ProcessInfo pi = processMap.get(p.getName());
-            totalWT += pi.waitingTime;
-            totalTAT += pi.turnaroundTime;
-
-            result.processResults.add(
-                    new SchedulerResult.ProcessResult(
-                            p.getName(),
-                            p.getArrivalTime(),
-                            p.getBurstTime(),
-                            p.getPriority(),
-                            pi.waitingTime,
-                            pi.turnaroundTime
-                    )
-            );
+        public void save(DataOutput state) throws IOException {
+            state.writeInt(currentTime);
+            state.writeLong(nextId);
+            state.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                int slot = queue[(head + i) % queue.length];
+                state.writeInt(slot);
+                state.writeInt(remaining[slot]);
+                state.writeLong(id[slot]);
+            }
         }
-        result.avgWaitingTime = totalWT / processes.size();
-        result.avgTurnaroundTime = totalTAT / processes.size();
 
-        return result;
+        // Nothing depends on the quantum between quantums, so a fork needs no changes
+        public void load(DataInput state, int savedParameter) throws IOException {
+            grow(in.slotCount());
+            currentTime = state.readInt();
+            nextId = state.readLong();
+            for (int waiting = state.readInt(); waiting > 0; waiting--) {
+                int slot = state.readInt();
+                remaining[slot] = state.readInt();
+                id[slot] = state.readLong();
+                enqueue(slot);
+            }
+        }
     }
 }
@@ -1,137 +1,181 @@
 package schedulers;
 
-import models.Process;
+import models.ProcessTable;
 import models.SchedulerResult;
 import models.SchedulerResult.ProcessResult;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
-public class SJFPreemptive implements Scheduler {
+public class SJFPreemptive extends BaseScheduler {
+
+    public SJFPreemptive() {
+        super("Preemptive Shortest Job First (SJF)");
+    }
 
     @Override
-    public SchedulerResult schedule(List<Process> processes, int contextSwitchTime, int rrQuantum) {
-        SchedulerResult result = new SchedulerResult("Preemptive Shortest Job First (SJF)");
-
-        // Copy and sort processes by arrival time
-        List<Process> procList = new ArrayList<>(processes);
-        procList.sort(Comparator.comparingInt(Process::getArrivalTime));
-
-        int n = procList.size();
-
-        // Create arrays of process data attributes
-        String[] names = new String[n];
-        int[] arrival = new int[n];
-        int[] burst = new int[n];
-        int[] remaining = new int[n];
-        int[] finish = new int[n];
-        int[] start = new int[n];
-        Arrays.fill(start, -1); // Initialize start times to -1
-
-        for (int i = 0; i < n; i++) { // Copy process data
-            Process p = procList.get(i);
-            names[i] = p.getName();
-            arrival[i] = p.getArrivalTime();
-            burst[i] = p.getBurstTime();
-            remaining[i] = burst[i];
-        }
+    public SchedulerResult schedule(ProcessTable processes, int contextSwitchTime, int rrQuantum) {
+        SchedulerResult result = super.schedule(processes, contextSwitchTime, rrQuantum);
+
+        // Calculate averages waiting and turnaround time rounded to 2 decimal places
+        result.avgWaitingTime = Math.round(result.avgWaitingTime * 100.0) / 100.0;
+        result.avgTurnaroundTime = Math.round(result.avgTurnaroundTime * 100.0) / 100.0;
+
+        return result;
+    }
+
+    @Override
+    Engine engine(ArrivalSource in, int contextSwitchTime, int rrQuantum, SchedulerEventSink out,
+                  SnapshotWriter snapshots) {
+        return new Simulation(in, out, contextSwitchTime, snapshots);
+    }
+
+    /**
+     * State of one run. Per-process state is indexed by the slot the ArrivalSource gave it.
+     */
+    private static class Simulation implements Engine {
+        final ArrivalSource in;
+        final SchedulerEventSink out;
+        final int contextSwitchTime;
+        final SnapshotWriter snapshots;
+        int[] remaining = new int[0];
+        long[] id = new long[0]; // Arrival sequence number, also the tie-breaker
 
         // Variables for simulation
         int time = 0;
-        int completed = 0;
-        List<String> execution_order = new ArrayList<>();
-        int current_index = -1;
-        int last_index = -1;
-
-        while (completed < n) { // Loop until all processes are completed
-            // Find the ready process with shortest remaining time
-            int min_remaining = -1;
-            int shortest_index = -1;
-
-            for (int i = 0; i < n; i++) { // Find process with shortest remaining time
-                if (arrival[i] <= time && remaining[i] > 0) {
-                    if (shortest_index == -1) { // If this is the first process found
-                        min_remaining = remaining[i];
-                        shortest_index = i;
-                    } else if (remaining[i] < min_remaining) {
-                        // Found shorter process
-                        min_remaining = remaining[i];
-                        shortest_index = i;
-                    } else if (remaining[i] == min_remaining) { // If same remaining time
-                        if (arrival[i] < arrival[shortest_index]) { // Choose process with earlier arrival
-                            shortest_index = i;
-                        }
-                    }
-                }
-            }
+        long next_id = 0;
+        long current_id = -1;
+        long last_id = -1;
+        int running = -1; // Slot of the process holding the CPU, kept out of the heap while it runs
+
+        // Ready processes ordered by remaining time, then by arrival sequence
+        // (which already means earlier arrival, then input order)
+        final SlotHeap.Positions positions = new SlotHeap.Positions();
+        final SlotHeap ready = new SlotHeap(positions);
+
+        Simulation(ArrivalSource in, SchedulerEventSink out, int contextSwitchTime, SnapshotWriter snapshots) {
+            this.in = in;
+            this.out = out;
+            this.contextSwitchTime = contextSwitchTime;
+            this.snapshots = snapshots;
+        }
 
-            // If no process found
-            if (shortest_index == -1) {
-                time++;
-                continue;
-            }
+        public void run() {
+            while (running != -1 || !ready.isEmpty() || in.hasNext()) { // Loop until all processes are completed
+                if (time >= snapshots.next) snapshots.take(time, this);
+
+                // Add newly arrived processes
+                while (in.hasNext() && in.peekArrivalTime() <= time) {
+                    int slot = in.next();
+                    if (slot >= remaining.length) grow(Math.max(in.slotCount(), remaining.length * 2));
+                    remaining[slot] = in.getBurstTime(slot);
+                    id[slot] = next_id++;
+                    ready.add(slot, remaining[slot], id[slot]);
+                }
 
-            // Context switch if process changed
-            if (last_index != -1 && last_index != shortest_index) {
-                time += contextSwitchTime;
-            }
+                // Find the ready process with shortest remaining time. The running process only
+                // gets shorter, so it is replaced only when a waiting one is strictly better.
+                if (running == -1 || (!ready.isEmpty() && isShorter(ready.peek(), running))) {
+                    if (running != -1) {
+                        ready.add(running, remaining[running], id[running]);
+                    }
 
-            // Record start time if first time running
-            if (start[shortest_index] == -1) {
-                start[shortest_index] = time;
-            }
+                    // If no process found, jump straight to the next arrival
+                    if (ready.isEmpty()) {
+                        time = in.peekArrivalTime();
+                        continue;
+                    }
+                    running = ready.poll();
+                }
 
-            // Add to execution order
-            if (current_index != shortest_index) {
-                execution_order.add(names[shortest_index]);
-                current_index = shortest_index;
-            }
+                // Context switch if process changed
+                if (last_id != -1 && last_id != id[running]) {
+                    if (contextSwitchTime > 0) {
+                        out.onContextSwitch(time, time + contextSwitchTime);
+                    }
+                    time += contextSwitchTime;
+                }
 
-            // Execute one time unit
-            remaining[shortest_index]--;
-            time++;
+                // Add to execution order
+                if (current_id != id[running]) {
+                    out.onDispatch(time, id[running], in.getName(running));
+                    current_id = id[running];
+                }
 
-            // If process finished
-            if (remaining[shortest_index] == 0) {
-                finish[shortest_index] = time;
-                completed++;
-                current_index = -1;
+                // Execute until the process finishes or the next arrival could preempt it.
+                // Always run at least one unit: processes that arrived during the context
+                // switch are only compared against it after that unit.
+                int run_time = remaining[running];
+                if (in.hasNext()) {
+                    run_time = Math.min(run_time, Math.max(1, in.peekArrivalTime() - time));
+                }
+                remaining[running] -= run_time;
+                time += run_time;
+
+                // Update last process for next iteration
+                last_id = id[running];
+
+                // If process finished
+                if (remaining[running] == 0) {
+                    ProcessResult result = BaseScheduler.resultOf(in, running, time);
+                    result.priority = 0; // Priority not used in SJF
+                    out.onCompletion(time, id[running], result);
+                    in.release(running);
+                    current_id = -1;
+                    running = -1;
+                }
             }
-
-            // Update last index for next iteration
-            last_index = shortest_index;
         }
 
-        // Set execution order
-        result.executionOrder = execution_order;
-
-        // Calculate Waiting Time and Turnaround Time
-        double total_waiting_time = 0;
-        double total_turnaround_time = 0;
-
-        for (int i = 0; i < n; i++) {
-            // Turnaround Time = Finish time - Arrival time
-            int turnaround_time = finish[i] - arrival[i];
+        void grow(int capacity) {
+            remaining = Arrays.copyOf(remaining, capacity);
+            id = Arrays.copyOf(id, capacity);
+            positions.ensureCapacity(capacity);
+        }
 
-            // Waiting Time = Turnaround Time - Burst time
-            int waiting_time = turnaround_time - burst[i];
+        // Ready slots are saved in heap array order, so adding them back rebuilds the same heap
+        public void save(DataOutput state) throws IOException {
+            state.writeInt(time);
+            state.writeLong(next_id);
+            state.writeLong(current_id);
+            state.writeLong(last_id);
+            state.writeInt(running);
+            if (running != -1) saveProcess(state, running);
+            state.writeInt(ready.size());
+            for (int i = 0; i < ready.size(); i++) saveProcess(state, ready.slotAt(i));
+        }
 
-            total_waiting_time += waiting_time;
-            total_turnaround_time += turnaround_time;
+        void saveProcess(DataOutput state, int slot) throws IOException {
+            state.writeInt(slot);
+            state.writeInt(remaining[slot]);
+            state.writeLong(id[slot]);
+        }
 
-            // Add process result to result
-            result.processResults.add(new ProcessResult(
-                    names[i],
-                    arrival[i],
-                    burst[i],
-                    0, // Priority not used in SJF
-                    waiting_time,
-                    turnaround_time
-            ));
+        public void load(DataInput state, int savedParameter) throws IOException {
+            grow(in.slotCount());
+            time = state.readInt();
+            next_id = state.readLong();
+            current_id = state.readLong();
+            last_id = state.readLong();
+            running = state.readInt();
+            if (running != -1) loadProcess(state);
+            for (int waiting = state.readInt(); waiting > 0; waiting--) {
+                int slot = loadProcess(state);
+                ready.add(slot, remaining[slot], id[slot]);
+            }
         }
 
-        // Calculate averages waiting and turnaround time rounded to 2 decimal places
-        result.avgWaitingTime = Math.round((total_waiting_time / n) * 100.0) / 100.0;
-        result.avgTurnaroundTime = Math.round((total_turnaround_time / n) * 100.0) / 100.0;
+        int loadProcess(DataInput state) throws IOException {
+            int slot = state.readInt();
+            remaining[slot] = state.readInt();
+            id[slot] = state.readLong();
+            return slot;
+        }
 
-        return result;
+        // True if process a should run before process b (shorter remaining time, then earlier arrival)
+        boolean isShorter(int a, int b) {
+            return remaining[a] < remaining[b] || (remaining[a] == remaining[b] && id[a] < id[b]);
+        }
     }
 }
@@ -1,9 +1,14 @@
 package schedulers;
 
 import models.Process;
+import models.ProcessTable;
 import models.SchedulerResult;
 import java.util.List;
 
 public interface Scheduler {
-    SchedulerResult schedule(List<Process> processes, int contextSwitchTime, int rrQuantum);
+    SchedulerResult schedule(ProcessTable processes, int contextSwitchTime, int rrQuantum);
+
+    default SchedulerResult schedule(List<Process> processes, int contextSwitchTime, int rrQuantum) {
+        return schedule(ProcessTable.from(processes), contextSwitchTime, rrQuantum);
+    }
 }
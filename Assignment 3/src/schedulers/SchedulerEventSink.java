@@ -0,0 +1,59 @@
+package schedulers;
+
+import models.SchedulerResult.CoreResult;
+import models.SchedulerResult.ProcessResult;
+
+/**
+ * Receives scheduling events while a scheduler runs.
+ *
+ * Processes are identified by their number in the input (0, 1, 2... in arrival
+ * order), since names are not guaranteed to be unique.
+ */
+public interface SchedulerEventSink {
+
+    /** Process {@code id} gets the CPU at {@code time} and starts running (one execution order entry). */
+    default void onDispatch(int time, long id, String name) {
+    }
+
+    /**
+     * The CPU was switched to process {@code id}, but a better one came along during
+     * the switch, so it gives the CPU up at {@code time} without running. It still
+     * takes an execution order entry, but it is not a dispatch.
+     */
+    default void onPreemptedDuringSwitch(int time, long id, String name) {
+    }
+
+    /** The CPU spends [start, end) switching between processes. */
+    default void onContextSwitch(int start, int end) {
+    }
+
+    /** onDispatch on a given core; multi-core schedulers call this one. */
+    default void onDispatch(int core, int time, long id, String name) {
+        onDispatch(time, id, name);
+    }
+
+    /** onPreemptedDuringSwitch on a given core; multi-core schedulers call this one. */
+    default void onPreemptedDuringSwitch(int core, int time, long id, String name) {
+        onPreemptedDuringSwitch(time, id, name);
+    }
+
+    /** onContextSwitch on a given core; multi-core schedulers call this one. */
+    default void onContextSwitch(int core, int start, int end) {
+        onContextSwitch(start, end);
+    }
+
+    /** Process {@code id} finished at {@code time}. */
+    void onCompletion(int time, long id, ProcessResult result);
+
+    /**
+     * Whether this sink reads the deprecated ProcessResult.extraInfo field. Schedulers
+     * only format AG quantum histories into it for sinks that do.
+     */
+    default boolean readsExtraInfoField() {
+        return true;
+    }
+
+    /** Multi-core schedulers report each core's totals once, after the last completion. */
+    default void onCoreFinished(CoreResult core) {
+    }
+}
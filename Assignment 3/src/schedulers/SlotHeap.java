@@ -0,0 +1,129 @@
+package schedulers;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of slots ordered by a long key, then a long tie-breaker (usually
+ * the arrival sequence). Keys are fixed while a slot is in the heap.
+ *
+ * Every heap of one kind shares a Positions table, indexed by slot, saying where
+ * each slot sits in its heap. This works because a slot is in at most one heap of
+ * a kind at a time (one run queue per core), and keeps per-heap memory
+ * proportional to the number of slots it holds rather than to the slot count.
+ */
+class SlotHeap {
+
+    /** Slot -> index in whichever heap holds it. */
+    static class Positions {
+        int[] at = new int[0];
+
+        void ensureCapacity(int slots) {
+            if (slots > at.length) at = Arrays.copyOf(at, Math.max(slots, at.length * 2));
+        }
+    }
+
+    private final Positions positions;
+    private int[] slots = new int[8];
+    private long[] keys = new long[8];
+    private long[] ties = new long[8];
+    private int size = 0;
+
+    SlotHeap(Positions positions) {
+        this.positions = positions;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Smallest slot, or -1 when empty. */
+    int peek() {
+        return size == 0 ? -1 : slots[0];
+    }
+
+    void add(int slot, long key, long tie) {
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+            ties = Arrays.copyOf(ties, size * 2);
+        }
+        set(size, slot, key, tie);
+        siftUp(size++);
+    }
+
+    /** Removes and returns the smallest slot, or -1 when empty. */
+    int poll() {
+        if (size == 0) return -1;
+        int top = slots[0];
+        removeAt(0);
+        return top;
+    }
+
+    /** Removes a slot that is in this heap. */
+    void remove(int slot) {
+        removeAt(positions.at[slot]);
+    }
+
+    /**
+     * Slot at an array index below size(). Adding the slots of a heap to an empty one
+     * in index order rebuilds the same array, as no entry has to move up.
+     */
+    int slotAt(int index) {
+        return slots[index];
+    }
+
+    /** Removes and returns the last array entry (a leaf, so no sifting), or -1 when empty. */
+    int removeLast() {
+        if (size == 0) return -1;
+        return slots[--size];
+    }
+
+    private void removeAt(int index) {
+        size--;
+        if (index == size) return;
+        set(index, slots[size], keys[size], ties[size]);
+        siftDown(index);
+        siftUp(index);
+    }
+
+    private void siftUp(int index) {
+        int slot = slots[index];
+        long key = keys[index], tie = ties[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!less(key, tie, keys[parent], ties[parent])) break;
+            set(index, slots[parent], keys[parent], ties[parent]);
+            index = parent;
+        }
+        set(index, slot, key, tie);
+    }
+
+    private void siftDown(int index) {
+        int slot = slots[index];
+        long key = keys[index], tie = ties[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) break;
+            if (child + 1 < size && less(keys[child + 1], ties[child + 1], keys[child], ties[child])) child++;
+            if (!less(keys[child], ties[child], key, tie)) break;
+            set(index, slots[child], keys[child], ties[child]);
+            index = child;
+        }
+        set(index, slot, key, tie);
+    }
+
+    private void set(int index, int slot, long key, long tie) {
+        slots[index] = slot;
+        keys[index] = key;
+        ties[index] = tie;
+        positions.at[slot] = index;
+    }
+
+    private static boolean less(long key, long tie, long otherKey, long otherTie) {
+        return key < otherKey || (key == otherKey && tie < otherTie);
+    }
+}
@@ -0,0 +1,106 @@
+package schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * State of a checkpointed run, as written by
+ * {@link StreamingScheduler#summarize(java.util.Iterator, int, int, Checkpoints)}.
+ * A snapshot is read once and can be resumed any number of times, so forking a run
+ * into what-if branches is one resume per branch, each with its own parameters.
+ *
+ * Layout (big-endian, as written by DataOutputStream):
+ * <pre>
+ *   int    magic                "CPUS"
+ *   short  version              2
+ *   UTF    scheduler name
+ *   int    context switch time, parameter
+ *   int    time                 simulated clock when the snapshot was taken
+ *   input  how many processes were taken, then every slot in use: its process's
+ *          fields, and the free slots in reuse order
+ *   result completions so far: metrics and the process each core ran last, totals,
+ *          deadline counts, the four latency histograms (non-empty buckets only),
+ *          and the first dispatch time and preemptions of every process that has
+ *          started and not finished
+ *   engine scheduler-specific: its loop state, then each live process's state, in
+ *          queue order where order matters
+ * </pre>
+ * Only live processes are stored, so a snapshot's size follows the number of
+ * processes in the system at that time, not the length of the trace.
+ */
+public class Snapshot {
+
+    static final int MAGIC = 0x43505553;  // "CPUS"
+    static final short VERSION = 3;
+
+    private final String schedulerName;
+    private final int contextSwitchTime;
+    private final int parameter;
+    private final int time;
+    private final byte[] bytes;
+    private final int bodyOffset;
+
+    private Snapshot(String schedulerName, int contextSwitchTime, int parameter, int time, byte[] bytes, int bodyOffset) {
+        this.schedulerName = schedulerName;
+        this.contextSwitchTime = contextSwitchTime;
+        this.parameter = parameter;
+        this.time = time;
+        this.bytes = bytes;
+        this.bodyOffset = bodyOffset;
+    }
+
+    public static Snapshot read(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (bytes.length < 6 || in.readInt() != MAGIC) {
+            throw new IOException(file + " is not a scheduler snapshot");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file);
+        }
+        String name = in.readUTF();
+        int contextSwitchTime = in.readInt();
+        int parameter = in.readInt();
+        int time = in.readInt();
+        return new Snapshot(name, contextSwitchTime, parameter, time, bytes, bytes.length - in.available());
+    }
+
+    static void writeHeader(DataOutput out, String schedulerName, int contextSwitchTime, int parameter, int time)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeUTF(schedulerName);
+        out.writeInt(contextSwitchTime);
+        out.writeInt(parameter);
+        out.writeInt(time);
+    }
+
+    /** Name of the scheduler that took it; only that scheduler can resume it. */
+    public String schedulerName() {
+        return schedulerName;
+    }
+
+    public int contextSwitchTime() {
+        return contextSwitchTime;
+    }
+
+    /** RR quantum, aging interval, etc., as passed to summarize(). */
+    public int parameter() {
+        return parameter;
+    }
+
+    /** Simulated time the snapshot was taken at. */
+    public int time() {
+        return time;
+    }
+
+    /** Everything after the header, for restoring a run. */
+    DataInputStream body() {
+        return new DataInputStream(new ByteArrayInputStream(bytes, bodyOffset, bytes.length - bodyOffset));
+    }
+}
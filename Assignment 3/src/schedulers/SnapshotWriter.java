@@ -0,0 +1,55 @@
+package schedulers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Takes the snapshots of one run. Engines compare their clock with {@link #next}
+ * at the top of every loop iteration and call {@link #take} once it is due; runs
+ * without checkpoints use {@link #NONE}, which is never due.
+ */
+class SnapshotWriter {
+    static final SnapshotWriter NONE = new SnapshotWriter(null, null, 0, 0, null, null, Long.MAX_VALUE);
+
+    private final String schedulerName;
+    private final Checkpoints checkpoints;
+    private final int contextSwitchTime, parameter;
+    private final ArrivalSource.IteratorSource source;
+    private final LatencyRecorder recorder;
+
+    /** Time of the next snapshot. */
+    long next;
+
+    SnapshotWriter(String schedulerName, Checkpoints checkpoints, int contextSwitchTime, int parameter,
+                   ArrivalSource.IteratorSource source, LatencyRecorder recorder, long after) {
+        this.schedulerName = schedulerName;
+        this.checkpoints = checkpoints;
+        this.contextSwitchTime = contextSwitchTime;
+        this.parameter = parameter;
+        this.source = source;
+        this.recorder = recorder;
+        this.next = checkpoints == null ? Long.MAX_VALUE : (after / checkpoints.interval() + 1) * checkpoints.interval();
+    }
+
+    void take(int time, Engine engine) {
+        Path file = checkpoints.fileFor(time);
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+                Snapshot.writeHeader(out, schedulerName, contextSwitchTime, parameter, time);
+                source.save(out);
+                recorder.save(out);
+                engine.save(out);
+            }
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write snapshot " + file, e);
+        }
+        next = ((long) time / checkpoints.interval() + 1) * checkpoints.interval();
+    }
+}
@@ -0,0 +1,64 @@
+package schedulers;
+
+import models.Process;
+import models.ProcessTable;
+import models.SchedulerResult;
+import java.util.Iterator;
+
+/**
+ * A scheduler that consumes its input as a stream and reports events as they
+ * happen, instead of taking a full list and returning a full result. It only
+ * keeps the processes that have arrived and not finished yet, so traces of any
+ * length can be replayed.
+ */
+public interface StreamingScheduler {
+
+    /**
+     * Runs the scheduler over {@code arrivals}, which must be sorted by arrival time.
+     * The last argument has the same meaning as in {@link Scheduler#schedule}.
+     */
+    void stream(Iterator<Process> arrivals, int contextSwitchTime, int rrQuantum, SchedulerEventSink sink);
+
+    /**
+     * Runs the scheduler over a whole table, reporting events to the sink instead of
+     * building a SchedulerResult. Nothing is kept per dispatch, so this is the cheap
+     * way to run many simulations over one trace.
+     */
+    void stream(ProcessTable processes, int contextSwitchTime, int rrQuantum, SchedulerEventSink sink);
+
+    /**
+     * Runs the scheduler over {@code arrivals} and returns only the averages and the
+     * latency histograms: executionOrder and processResults stay empty, so memory
+     * does not grow with the length of the run.
+     */
+    SchedulerResult summarize(Iterator<Process> arrivals, int contextSwitchTime, int rrQuantum);
+
+    /**
+     * summarize(), also writing a snapshot of the whole run as set by
+     * {@code checkpoints}, so that a run that stops can be resumed from its last
+     * snapshot, or forked from any of them.
+     */
+    SchedulerResult summarize(Iterator<Process> arrivals, int contextSwitchTime, int rrQuantum, Checkpoints checkpoints);
+
+    /**
+     * Carries on a run from a snapshot this scheduler took, and returns the summary
+     * of the whole run, from the start. {@code arrivals} is the same stream the run
+     * was given, from its beginning: the processes taken before the snapshot are
+     * skipped, not simulated again.
+     *
+     * With the snapshot's context switch time and parameter the result is exactly
+     * that of the uninterrupted run. Different ones fork a what-if branch that
+     * applies them from the snapshot on. Work already done stays as it was: a process
+     * keeps what it has used of its current quantum (but always has at least one
+     * unit of it left), and aging counters restart from the snapshot when the aging
+     * interval changes. {@code checkpoints} may be null
+     * for no further snapshots.
+     */
+    SchedulerResult resume(Snapshot snapshot, Iterator<Process> arrivals, int contextSwitchTime, int rrQuantum,
+                           Checkpoints checkpoints);
+
+    /** Carries on a run from a snapshot with its own parameters and no further snapshots. */
+    default SchedulerResult resume(Snapshot snapshot, Iterator<Process> arrivals) {
+        return resume(snapshot, arrivals, snapshot.contextSwitchTime(), snapshot.parameter(), null);
+    }
+}
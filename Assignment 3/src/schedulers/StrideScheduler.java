@@ -0,0 +1,213 @@
+package schedulers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Stride scheduling (Waldspurger and Weihl). Each process holds tickets, its share
+ * of the CPU, and a pass value; the process with the smallest pass runs for a
+ * quantum, and its pass then advances by its stride (STRIDE1 / tickets) for every
+ * time unit it ran, so over time each process gets CPU in proportion to its
+ * tickets. A process that finishes early is only charged for what it used.
+ *
+ * Tickets come from the priority field, with the same table CFSScheduler uses for
+ * its weights (priority 1 has 1024 tickets, each step down about 20% fewer), so
+ * both proportional-share schedulers read priorities the same way.
+ *
+ * The global pass advances by STRIDE1 / (total tickets) per time unit while the CPU
+ * is busy. A process that arrives joins at the global pass plus its own stride, as
+ * a client starting its first allocation does in the paper, and one that finishes
+ * takes its tickets out of the total. Scheduling decisions are made at the end of
+ * each quantum; arrivals do not preempt. Context switches are charged when the CPU
+ * changes process, as in SJF and Priority.
+ *
+ * Waiting processes sit in a heap by pass, then arrival, so each decision, join and
+ * leave is O(log n).
+ */
+public class StrideScheduler extends BaseScheduler {
+
+    static final long STRIDE1 = 1L << 30;
+
+    public StrideScheduler() {
+        super("Stride Scheduling");
+    }
+
+    /** Tickets of a process with the given priority. */
+    public static int ticketsOf(int priority) {
+        return CFSScheduler.weightOf(priority);
+    }
+
+    @Override
+    Engine engine(ArrivalSource in, int contextSwitchTime, int quantum, SchedulerEventSink out,
+                  SnapshotWriter snapshots) {
+        if (quantum < 1) {
+            throw new IllegalArgumentException("Stride scheduling quantum must be at least 1, got " + quantum);
+        }
+        return new Simulation(in, out, contextSwitchTime, quantum, snapshots);
+    }
+
+    /**
+     * State of one run. Per-process state is indexed by the slot the ArrivalSource gave it.
+     */
+    private static class Simulation implements Engine {
+        final ArrivalSource in;
+        final SchedulerEventSink out;
+        final int contextSwitchTime, quantum;
+        final SnapshotWriter snapshots;
+
+        int[] remaining = new int[0];
+        int[] tickets = new int[0];
+        long[] pass = new long[0];
+        long[] id = new long[0];
+        long nextId = 0;
+
+        final SlotHeap.Positions positions = new SlotHeap.Positions();
+        final SlotHeap ready = new SlotHeap(positions);
+        long globalTickets = 0;
+        long globalPass = 0, globalRemainder = 0;  // Plus globalRemainder / globalTickets
+
+        int time = 0;
+        long lastId = -1;
+        int running = -1;
+        long quantumEnd = 0;
+
+        Simulation(ArrivalSource in, SchedulerEventSink out, int contextSwitchTime, int quantum,
+                   SnapshotWriter snapshots) {
+            this.in = in;
+            this.out = out;
+            this.contextSwitchTime = contextSwitchTime;
+            this.quantum = quantum;
+            this.snapshots = snapshots;
+        }
+
+        public void run() {
+            while (running != -1 || !ready.isEmpty() || in.hasNext()) {
+                if (time >= snapshots.next) snapshots.take(time, this);
+
+                admitArrivals(time);
+
+                if (running == -1) {
+                    if (ready.isEmpty()) {
+                        time = in.peekArrivalTime();
+                        continue;
+                    }
+                    running = ready.poll();
+                    if (lastId != id[running]) {
+                        if (lastId != -1) {
+                            if (contextSwitchTime > 0) {
+                                out.onContextSwitch(time, time + contextSwitchTime);
+                            }
+                            time += contextSwitchTime;
+                            admitArrivals(time);
+                        }
+                        out.onDispatch(time, id[running], in.getName(running));
+                        lastId = id[running];
+                    }
+                    quantumEnd = time + quantum;
+                }
+
+                // Run to the end of the quantum or of the process, stopping at arrivals so
+                // they join at the global pass of their arrival time
+                long end = Math.min(time + (long) remaining[running], quantumEnd);
+                if (in.hasNext()) {
+                    end = Math.min(end, in.peekArrivalTime());
+                }
+                int ran = (int) (end - time);
+                remaining[running] -= ran;
+                pass[running] += STRIDE1 / tickets[running] * ran;
+                advanceGlobalPass(ran);
+                time += ran;
+
+                if (remaining[running] == 0) {
+                    out.onCompletion(time, id[running], BaseScheduler.resultOf(in, running, time));
+                    globalTickets -= tickets[running];
+                    globalRemainder = 0;
+                    in.release(running);
+                    running = -1;
+                } else if (time == quantumEnd) {
+                    ready.add(running, pass[running], id[running]);
+                    running = -1;
+                }
+            }
+        }
+
+        void admitArrivals(int time) {
+            while (in.hasNext() && in.peekArrivalTime() <= time) {
+                int slot = in.next();
+                if (slot >= remaining.length) grow(Math.max(in.slotCount(), remaining.length * 2));
+                remaining[slot] = in.getBurstTime(slot);
+                tickets[slot] = ticketsOf(in.getPriority(slot));
+                pass[slot] = globalPass + STRIDE1 / tickets[slot];
+                id[slot] = nextId++;
+                globalTickets += tickets[slot];
+                globalRemainder = 0;  // The fraction was relative to the old total
+                ready.add(slot, pass[slot], id[slot]);
+            }
+        }
+
+        void grow(int capacity) {
+            remaining = Arrays.copyOf(remaining, capacity);
+            tickets = Arrays.copyOf(tickets, capacity);
+            pass = Arrays.copyOf(pass, capacity);
+            id = Arrays.copyOf(id, capacity);
+            positions.ensureCapacity(capacity);
+        }
+
+        // Tickets come from the priorities, and globalTickets from the tickets. A fork keeps
+        // the running process's quantum; the new one applies from its next dispatch.
+        public void save(DataOutput state) throws IOException {
+            state.writeInt(time);
+            state.writeLong(lastId);
+            state.writeLong(quantumEnd);
+            state.writeLong(globalPass);
+            state.writeLong(globalRemainder);
+            state.writeLong(nextId);
+            state.writeInt(running);
+            if (running != -1) saveProcess(state, running);
+            state.writeInt(ready.size());
+            for (int i = 0; i < ready.size(); i++) saveProcess(state, ready.slotAt(i));
+        }
+
+        void saveProcess(DataOutput state, int slot) throws IOException {
+            state.writeInt(slot);
+            state.writeInt(remaining[slot]);
+            state.writeLong(pass[slot]);
+            state.writeLong(id[slot]);
+        }
+
+        public void load(DataInput state, int savedParameter) throws IOException {
+            grow(in.slotCount());
+            time = state.readInt();
+            lastId = state.readLong();
+            quantumEnd = state.readLong();
+            globalPass = state.readLong();
+            globalRemainder = state.readLong();
+            nextId = state.readLong();
+            running = state.readInt();
+            if (running != -1) loadProcess(state);
+            for (int waiting = state.readInt(); waiting > 0; waiting--) {
+                int slot = loadProcess(state);
+                ready.add(slot, pass[slot], id[slot]);
+            }
+        }
+
+        int loadProcess(DataInput state) throws IOException {
+            int slot = state.readInt();
+            remaining[slot] = state.readInt();
+            pass[slot] = state.readLong();
+            id[slot] = state.readLong();
+            tickets[slot] = ticketsOf(in.getPriority(slot));
+            globalTickets += tickets[slot];
+            return slot;
+        }
+
+        // Exact to the ticket, however many tickets there are
+        void advanceGlobalPass(int ran) {
+            long total = STRIDE1 * ran + globalRemainder;
+            globalPass += total / globalTickets;
+            globalRemainder = total % globalTickets;
+        }
+    }
+}
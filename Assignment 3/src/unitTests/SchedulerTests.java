@@ -2,17 +2,39 @@ package unitTests;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import models.LatencyHistogram;
 import models.Process;
+import models.ProcessTable;
+import models.SchedulerMetrics;
 import models.SchedulerResult;
 import models.SchedulerResult.ProcessResult;
+import models.Timeline;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import schedulers.*;
 import unitTests.dto.TestCaseDTO;
+import utils.BatchInput;
+import utils.OutputFormatter;
+import utils.TraceConverter;
+import utils.TraceFile;
+import utils.WorkloadGenerator;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
 
 public class SchedulerTests {
 
@@ -39,6 +61,35 @@ public class SchedulerTests {
     @Test
     public void testAG_Case6() throws IOException { runAGTest("AG/AG_test6.json"); }
 
+    @Test
+    public void testAG_RejectsQuantumBelowTwo() {
+        // This used to run forever: P0 and P2 drop to quantum 0 and keep preempting each other
+        List<Process> processes = List.of(new Process("P0", 1, 7, 3, 1), new Process("P1", 3, 1, 0, 3),
+                new Process("P2", 3, 8, 1, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AGScheduler().schedule(processes, 0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new AGScheduler().summarize(processes.iterator(), 0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new MultiCoreScheduler(MultiCoreScheduler.Policy.AG, 2, MultiCoreScheduler.Balancing.PUSH)
+                        .schedule(processes, 0, 0));
+    }
+
+    @Test
+    public void testAG_QuantumHistoryAccessor() throws IOException {
+        TestCaseDTO testCase = TestLoader.loadTestCase("AG/AG_test1.json");
+        List<Process> processes = TestLoader.mapToDomain(testCase.input.processes);
+        SchedulerResult result = new AGScheduler().schedule(processes, 0, 0);
+        for (JsonNode expProc : testCase.expectedOutput.get("processResults")) {
+            ProcessResult actual = result.processResults.stream()
+                    .filter(p -> p.name.equals(expProc.get("name").asText())).findFirst().orElseThrow();
+            Assertions.assertArrayEquals(mapper.convertValue(expProc.get("quantumHistory"), int[].class),
+                    actual.getQuantumHistory(), actual.name);
+        }
+        SchedulerResult rr = new RoundRobin().schedule(processes, 0, 2);
+        Assertions.assertNull(rr.processResults.get(0).getQuantumHistory());
+        Assertions.assertEquals("", rr.processResults.get(0).getExtraInfo());
+    }
+
     // ==========================================
     // STANDARD SCHEDULER TESTS (SJF, RR, Priority)
     // ==========================================
@@ -61,6 +112,896 @@ public class SchedulerTests {
     @Test
     public void testStandard_Case6() throws IOException { runStandardTest("test_6.json"); }
 
+    @Test
+    public void testPriority_BelowOneIsNotAged() {
+        // B's priority 0 beats A's 1 from the moment it arrives
+        List<Process> processes = List.of(new Process("A", 0, 3, 1, 0), new Process("B", 1, 2, 0, 0));
+        SchedulerResult result = new PriorityScheduler().schedule(processes, 0, 2);
+        Assertions.assertEquals(List.of("A", "B", "A"), result.executionOrder);
+        Assertions.assertEquals(0, result.processResults.get(1).waitingTime);
+
+        // Aging brings A down to 1 at best, so B, still at 0 after waiting, goes first
+        processes = List.of(new Process("C", 0, 6, -1, 0), new Process("A", 0, 2, 1, 0),
+                new Process("B", 1, 2, 0, 0));
+        result = new PriorityScheduler().schedule(processes, 0, 1);
+        Assertions.assertEquals(List.of("C", "B", "A"), result.executionOrder);
+    }
+
+    @Test
+    public void testPriority_ListsAFirstProcessThatFinishesInOneTick() {
+        List<Process> processes = List.of(new Process("P0", 1, 1, 4, 0), new Process("P1", 2, 7, 1, 0),
+                new Process("P2", 6, 9, 2, 0));
+        SchedulerResult result = new PriorityScheduler().schedule(processes, 0, 2);
+        Assertions.assertEquals(List.of("P0", "P1", "P2"), result.executionOrder);
+        Assertions.assertEquals(0, result.processResults.get(0).responseTime);
+    }
+
+    @Test
+    public void testRoundRobin_EqualArrivalsKeepInputOrder() {
+        // The original selection sort swapped A and B here and ran C, B, A, B, A
+        List<Process> processes = List.of(new Process("A", 1, 3, 1, 0), new Process("B", 1, 3, 1, 0),
+                new Process("C", 0, 1, 1, 0));
+        SchedulerResult result = new RoundRobin().schedule(processes, 0, 2);
+        Assertions.assertEquals(List.of("C", "A", "B", "A", "B"), result.executionOrder);
+    }
+
+    @Test
+    public void testRoundRobin_RejectsQuantumBelowOne() {
+        List<Process> processes = List.of(new Process("A", 0, 3, 1, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RoundRobin().schedule(processes, 0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new RoundRobin().summarize(processes.iterator(), 0, -1));
+    }
+
+    // ==========================================
+    // WORKLOAD GENERATOR TESTS
+    // ==========================================
+
+    @Test
+    public void testWorkloadGenerator_SameSeedSameTrace() {
+        ProcessTable table = generator(42).toTable(2_000);
+        Iterator<Process> again = generator(42).iterator(2_000);
+        for (int row = 0; row < table.size(); row++) {
+            Assertions.assertEquals(describe(table.toProcess(row)), describe(again.next()), "row " + row);
+        }
+        Assertions.assertFalse(again.hasNext());
+
+        ProcessTable other = generator(43).toTable(2_000);
+        boolean differs = false;
+        for (int row = 0; row < table.size() && !differs; row++) {
+            differs = !describe(table.toProcess(row)).equals(describe(other.toProcess(row)));
+        }
+        Assertions.assertTrue(differs, "Another seed gave the same trace");
+    }
+
+    @Test
+    public void testWorkloadGenerator_RejectsQuantumsAGCannotFinish() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new WorkloadGenerator(1).quantums(1, 4));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new WorkloadGenerator(1).quantums(5, 4));
+        new WorkloadGenerator(1).quantums(2, 2);
+    }
+
+    private static WorkloadGenerator generator(long seed) {
+        return new WorkloadGenerator(seed).burstyArrivals(6, 3).paretoBursts(8, 1.5).priorities(0, 5)
+                .quantums(2, 6).deadlines(1.5, 3);
+    }
+
+    private static String describe(Process process) {
+        return process.getName() + " " + process.getArrivalTime() + " " + process.getBurstTime() + " "
+                + process.getPriority() + " " + process.getQuantum() + " " + process.getDeadline();
+    }
+
+    // ==========================================
+    // TRACE FILE TESTS
+    // ==========================================
+
+    @Test
+    public void testTraceFile_RoundTrip() throws IOException {
+        // Repeated names share a dictionary entry; arrivals jump far ahead and back
+        ProcessTable table = new ProcessTable.Builder()
+                .add("A", 0, 5, 2, 3, 12).add("Zoë-進程", 4, 1, 0, 2).add("A", 4, 7, 9, 4, 7)
+                .add("B", 2_000_000_000, 3, -1, 5).add("C", 1, 2, 1, 2)
+                .build();
+        Path file = Files.createTempFile("roundtrip", ".trace");
+        try {
+            TraceFile.write(file, table, 1, 3, 5);
+            Assertions.assertTrue(TraceFile.isTraceFile(file));
+            TraceFile trace = TraceFile.read(file);
+            Assertions.assertEquals(1, trace.contextSwitchTime());
+            Assertions.assertEquals(3, trace.rrQuantum());
+            Assertions.assertEquals(5, trace.agingInterval());
+            ProcessTable read = trace.table();
+            Assertions.assertEquals(table.size(), read.size());
+            for (int row = 0; row < table.size(); row++) {
+                Assertions.assertEquals(describe(table.toProcess(row)), describe(read.toProcess(row)), "row " + row);
+            }
+            Assertions.assertEquals(4, read.nameCount());
+            Assertions.assertEquals(read.getNameId(0), read.getNameId(2));
+            Assertions.assertTrue(read.hasDeadlines());
+
+            // Cut into the last name, then right after the one before it
+            byte[] bytes = Files.readAllBytes(file);
+            for (int cut : new int[] {1, 3}) {
+                Files.write(file, Arrays.copyOf(bytes, bytes.length - cut));
+                IOException e = Assertions.assertThrows(IOException.class, () -> TraceFile.read(file));
+                Assertions.assertTrue(e.getMessage().startsWith("Corrupt trace"), e.getMessage());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testTraceFile_KeepsGeneratedDeadlines() throws IOException {
+        Path file = Files.createTempFile("generated", ".trace");
+        try {
+            generator(42).writeTrace(file, 2_000, 2, 1, 5);
+            ProcessTable expected = generator(42).toTable(2_000);
+            ProcessTable read = TraceFile.read(file).table();
+            for (int row = 0; row < expected.size(); row++) {
+                Assertions.assertEquals(describe(expected.toProcess(row)), describe(read.toProcess(row)), "row " + row);
+            }
+            SchedulerResult edf = new EDFScheduler().schedule(read, 1, 0);
+            Assertions.assertEquals(2_000, edf.deadlineProcesses);
+            Assertions.assertEquals(new EDFScheduler().schedule(expected, 1, 0).deadlineMisses, edf.deadlineMisses);
+
+            // Without deadlines there is no deadline column in the table read back
+            new WorkloadGenerator(42).writeTrace(file, 100, 2, 1, 5);
+            Assertions.assertFalse(TraceFile.read(file).table().hasDeadlines());
+
+            // Version 1 records have no deadline: one process "P", arriving at 3
+            ByteBuffer v1 = ByteBuffer.allocate(40 + 20 + 3).order(ByteOrder.LITTLE_ENDIAN);
+            v1.putInt(0x54555043).putShort((short) 1).putShort((short) 20).putInt(1).putInt(1).putInt(2).putInt(5)
+                    .putLong(60).putInt(1).putInt(0);
+            v1.putInt(3).putInt(4).putInt(2).putInt(6).putInt(0);
+            v1.putShort((short) 1).put((byte) 'P');
+            Files.write(file, v1.array());
+            TraceFile trace = TraceFile.read(file);
+            Assertions.assertEquals(2, trace.rrQuantum());
+            Assertions.assertEquals("P 3 4 2 6 0", describe(trace.table().toProcess(0)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testTraceConverter_MatchesTestCase() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            TestCaseDTO testCase = TestLoader.loadTestCase("test_" + i + ".json");
+            List<Process> processes = TestLoader.mapToDomain(testCase.input.processes);
+            Path file = Files.createTempFile("test_" + i, ".trace");
+            try {
+                Assertions.assertEquals(processes.size(),
+                        TraceConverter.convert(Path.of("TestCases/test_" + i + ".json"), file));
+                TraceFile trace = TraceFile.read(file);
+                Assertions.assertEquals(testCase.input.contextSwitch, trace.contextSwitchTime());
+                Assertions.assertEquals(testCase.input.rrQuantum, trace.rrQuantum());
+                Assertions.assertEquals(testCase.input.agingInterval, trace.agingInterval());
+                for (int row = 0; row < processes.size(); row++) {
+                    Assertions.assertEquals(describe(processes.get(row)), describe(trace.table().toProcess(row)));
+                }
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // ==========================================
+    // BATCH INPUT TESTS
+    // ==========================================
+
+    @Test
+    public void testBatchInput_ParsesIntegers() {
+        BatchInput input = batch("2147483647 -2147483648 +7 -0 007\t\r\n  12");
+        for (int expected : new int[] {Integer.MAX_VALUE, Integer.MIN_VALUE, 7, 0, 7, 12}) {
+            Assertions.assertEquals(expected, input.nextInt("value"));
+        }
+        for (String bad : new String[] {"2147483648", "-2147483649", "99999999999", "-", "+", "1-2", "4x", "--1"}) {
+            IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> batch("5 " + bad).readProcesses(1, false));
+            Assertions.assertTrue(e.getMessage().contains("'" + bad + "' (token 2)"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBatchInput_ReadsProcessesUpToTheEnd() throws IOException {
+        // The last token ends the file, with no newline after it
+        Path file = Files.createTempFile("batch", ".txt");
+        try {
+            Files.writeString(file, "2 3 1 4\nA 0 5 2 3\nB 1 2 1 2");
+            try (BatchInput input = BatchInput.open(file.toString())) {
+                Assertions.assertEquals(2, input.nextInt("number of processes"));
+                for (int i = 0; i < 3; i++) input.nextInt("header value");
+                ProcessTable table = input.readProcesses(2, true);
+                Assertions.assertEquals("A 0 5 2 3 0", describe(table.toProcess(0)));
+                Assertions.assertEquals("B 1 2 1 2 0", describe(table.toProcess(1)));
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        // A process cut short names the field that is missing
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> batch("A 0 5 2\nB 1").readProcesses(2, false));
+        Assertions.assertEquals("Input ended before burst time (token 7)", e.getMessage());
+    }
+
+    private static BatchInput batch(String text) {
+        return new BatchInput(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // ==========================================
+    // STREAMING LOADER TESTS (same cases, parsed incrementally)
+    // ==========================================
+
+    @Test
+    public void testStreaming_AllAGCases() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            StreamingTestLoader.check("AG/AG_test" + i + ".json", null, new AGScheduler(), 0, 0);
+        }
+    }
+
+    @Test
+    public void testStreaming_AllStandardCases() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            String filename = "test_" + i + ".json";
+            StreamingTestLoader.Header header = StreamingTestLoader.readHeader(filename);
+            for (String key : header.expectedSchedulers) {
+                switch (key) {
+                    case "SJF" -> StreamingTestLoader.check(filename, key, new SJFPreemptive(),
+                            header.contextSwitch, header.rrQuantum);
+                    case "RR" -> StreamingTestLoader.check(filename, key, new RoundRobin(),
+                            header.contextSwitch, header.rrQuantum);
+                    case "Priority" -> StreamingTestLoader.check(filename, key, new PriorityScheduler(),
+                            header.contextSwitch, header.agingInterval);
+                    default -> Assertions.fail("Unknown scheduler " + key + " in " + filename);
+                }
+            }
+        }
+    }
+
+    // ==========================================
+    // OUTPUT FORMAT TESTS
+    // ==========================================
+
+    @Test
+    public void testOutput_CsvRowsMatchResults() throws IOException {
+        SchedulerResult rr = roundRobinOnTest1();
+        SchedulerResult ag = new AGScheduler().schedule(
+                TestLoader.mapToDomain(TestLoader.loadTestCase("AG/AG_test1.json").input.processes), 0, 0);
+        StringWriter text = new StringWriter();
+        OutputFormatter output = new OutputFormatter(text, OutputFormatter.Mode.CSV);
+        output.print(rr);
+        output.print(ag);
+
+        // One header for the whole output; AG's quantum histories hold commas, so they are quoted
+        String[] lines = text.toString().split("\n");
+        Assertions.assertEquals("scheduler,process,arrival,burst,priority,waitingTime,turnaroundTime,responseTime,"
+                + "preemptions,extraInfo", lines[0]);
+        Assertions.assertEquals(1 + rr.processResults.size() + ag.processResults.size(), lines.length);
+        int line = 1;
+        for (SchedulerResult result : List.of(rr, ag)) {
+            for (ProcessResult pr : result.processResults) {
+                Assertions.assertEquals(List.of(result.schedulerName, pr.name, "" + pr.arrivalTime, "" + pr.burstTime,
+                        "" + pr.priority, "" + pr.waitingTime, "" + pr.turnaroundTime, "" + pr.responseTime,
+                        "" + pr.preemptions, pr.getExtraInfo()), csvFields(lines[line++]));
+            }
+        }
+
+        // Another output starts with its own header
+        StringWriter again = new StringWriter();
+        new OutputFormatter(again, OutputFormatter.Mode.CSV).print(rr);
+        Assertions.assertTrue(again.toString().startsWith("scheduler,process,"));
+    }
+
+    @Test
+    public void testOutput_JsonLinesMatchResults() throws IOException {
+        SchedulerResult rr = roundRobinOnTest1();
+        StringWriter text = new StringWriter();
+        new OutputFormatter(text, OutputFormatter.Mode.JSONL).print(rr);
+        String[] lines = text.toString().split("\n");
+        Assertions.assertEquals(rr.processResults.size() + 2, lines.length);
+
+        for (int i = 0; i < rr.processResults.size(); i++) {
+            JsonNode row = mapper.readTree(lines[i]);
+            ProcessResult pr = rr.processResults.get(i);
+            Assertions.assertEquals("process", row.get("type").asText());
+            Assertions.assertEquals(rr.schedulerName, row.get("scheduler").asText());
+            Assertions.assertEquals(pr.name, row.get("name").asText());
+            Assertions.assertEquals(pr.waitingTime, row.get("waitingTime").asInt());
+            Assertions.assertEquals(pr.turnaroundTime, row.get("turnaroundTime").asInt());
+            Assertions.assertEquals(pr.responseTime, row.get("responseTime").asInt());
+            Assertions.assertEquals(pr.preemptions, row.get("preemptions").asInt());
+        }
+        JsonNode order = mapper.readTree(lines[lines.length - 2]);
+        Assertions.assertEquals("executionOrder", order.get("type").asText());
+        Assertions.assertEquals(rr.executionOrder, mapper.convertValue(order.get("order"), List.class));
+
+        JsonNode summary = mapper.readTree(lines[lines.length - 1]);
+        Assertions.assertEquals("summary", summary.get("type").asText());
+        Assertions.assertEquals(rr.processResults.size(), summary.get("processes").asInt());
+        Assertions.assertEquals(rr.avgWaitingTime, summary.get("averageWaitingTime").asDouble());
+        Assertions.assertEquals(rr.avgTurnaroundTime, summary.get("averageTurnaroundTime").asDouble());
+        Assertions.assertEquals(rr.responseTimes.max(), summary.get("responseTime").get("max").asLong());
+        Assertions.assertEquals(rr.metrics.contextSwitches, summary.get("contextSwitches").asLong());
+        Assertions.assertEquals(rr.metrics.idleTime(), summary.get("idleTime").asLong());
+    }
+
+    @Test
+    public void testOutput_SummaryIsOneLine() {
+        SchedulerResult rr = roundRobinOnTest1();
+        StringWriter text = new StringWriter();
+        new OutputFormatter(text, OutputFormatter.Mode.SUMMARY).print(rr);
+        String line = text.toString();
+        Assertions.assertTrue(line.endsWith("\n") && line.indexOf('\n') == line.length() - 1, line);
+        Assertions.assertTrue(line.startsWith(rr.schedulerName), line);
+        for (String field : new String[] {
+                "processes=" + rr.processResults.size(),
+                "dispatches=" + rr.executionOrder.size(),
+                String.format("avgWaiting=%.2f", rr.avgWaitingTime),
+                String.format("avgTurnaround=%.2f", rr.avgTurnaroundTime),
+                "switches=" + rr.metrics.contextSwitches,
+                "preemptions=" + rr.metrics.preemptions}) {
+            Assertions.assertTrue(line.contains(" " + field + " "), field + " in " + line);
+        }
+    }
+
+    private static SchedulerResult roundRobinOnTest1() {
+        try {
+            TestCaseDTO testCase = TestLoader.loadTestCase("test_1.json");
+            return new RoundRobin().schedule(TestLoader.mapToDomain(testCase.input.processes),
+                    testCase.input.contextSwitch, testCase.input.rrQuantum);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Splits one CSV line, undoing the quoting of fields with commas or quotes
+    private static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // ==========================================
+    // LATENCY HISTOGRAM TESTS
+    // ==========================================
+
+    @Test
+    public void testLatencyHistograms_MatchProcessResults() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            TestCaseDTO testCase = TestLoader.loadTestCase("test_" + i + ".json");
+            int cs = testCase.input.contextSwitch;
+            List<Process> processes = TestLoader.mapToDomain(testCase.input.processes);
+            assertHistogramsMatch(new SJFPreemptive(), processes, cs, testCase.input.rrQuantum);
+            assertHistogramsMatch(new RoundRobin(), processes, cs, testCase.input.rrQuantum);
+            assertHistogramsMatch(new PriorityScheduler(), processes, cs, testCase.input.agingInterval);
+        }
+    }
+
+    @Test
+    public void testLatencyHistogram_BoundedError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int[] values = new int[100_000];
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(Integer.MAX_VALUE);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percent : new double[] {50, 90, 99, 99.9}) {
+            int exact = values[(int) Math.ceil(percent / 100 * values.length) - 1];
+            int reported = histogram.percentile(percent);
+            Assertions.assertTrue(reported >= exact && reported - exact <= exact / 64,
+                    "p" + percent + ": exact " + exact + ", reported " + reported);
+        }
+        Assertions.assertEquals(values[values.length - 1], histogram.max());
+        Assertions.assertEquals(values.length, histogram.count());
+    }
+
+    // Test cases have small times, which the histogram holds exactly
+    private void assertHistogramsMatch(BaseScheduler scheduler, List<Process> processes, int cs, int parameter) {
+        SchedulerResult result = scheduler.schedule(processes, cs, parameter);
+        int[] waiting = result.processResults.stream().mapToInt(pr -> pr.waitingTime).sorted().toArray();
+        int[] turnaround = result.processResults.stream().mapToInt(pr -> pr.turnaroundTime).sorted().toArray();
+        for (double percent : new double[] {50, 90, 99, 99.9, 100}) {
+            int rank = Math.max(1, (int) Math.ceil(percent / 100 * waiting.length)) - 1;
+            Assertions.assertEquals(waiting[rank], result.waitingTimes.percentile(percent),
+                    result.schedulerName + " waiting p" + percent);
+            Assertions.assertEquals(turnaround[rank], result.turnaroundTimes.percentile(percent),
+                    result.schedulerName + " turnaround p" + percent);
+        }
+        Assertions.assertEquals(processes.size(), result.responseTimes.count());
+        Assertions.assertTrue(result.responseTimes.max() <= waiting[waiting.length - 1],
+                result.schedulerName + ": a process responded later than it finished waiting");
+
+        SchedulerResult summary = scheduler.summarize(processes.iterator(), cs, parameter);
+        Assertions.assertTrue(summary.processResults.isEmpty() && summary.executionOrder.isEmpty());
+        Assertions.assertEquals(result.waitingTimes.p99(), summary.waitingTimes.p99());
+        Assertions.assertEquals(result.responseTimes.p50(), summary.responseTimes.p50());
+        Assertions.assertEquals(result.turnaroundTimes.max(), summary.turnaroundTimes.max());
+        Assertions.assertEquals(result.avgWaitingTime, summary.avgWaitingTime, 0.01);
+    }
+
+    // ==========================================
+    // MULTI-CORE TESTS
+    // ==========================================
+
+    @Test
+    public void testMultiCore_OneCoreMatchesSingleCore() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            TestCaseDTO testCase = TestLoader.loadTestCase("test_" + i + ".json");
+            List<Process> processes = TestLoader.mapToDomain(testCase.input.processes);
+            int rrQ = testCase.input.rrQuantum, aging = testCase.input.agingInterval;
+            assertSameResult(new SJFPreemptive().schedule(processes, 0, rrQ),
+                    new MultiCoreScheduler(MultiCoreScheduler.Policy.SJF, 1, MultiCoreScheduler.Balancing.PULL)
+                            .schedule(processes, 0, rrQ));
+            assertSameResult(new RoundRobin().schedule(processes, 0, rrQ),
+                    new MultiCoreScheduler(MultiCoreScheduler.Policy.RR, 1, MultiCoreScheduler.Balancing.PUSH)
+                            .schedule(processes, 0, rrQ));
+            assertSameResult(new PriorityScheduler().schedule(processes, 0, aging),
+                    new MultiCoreScheduler(MultiCoreScheduler.Policy.PRIORITY, 1, MultiCoreScheduler.Balancing.STEAL)
+                            .schedule(processes, 0, aging));
+        }
+        // Priority 0 never ages, so it must not be clamped to 1 on either side
+        List<Process> unaged = List.of(new Process("P0", 0, 7, 2, 0), new Process("P1", 0, 11, 0, 0),
+                new Process("P2", 0, 2, 3, 0), new Process("P3", 0, 3, 2, 0), new Process("P4", 5, 4, 0, 0));
+        for (int aging : new int[] {0, 1, 4}) {
+            assertSameResult(new PriorityScheduler().schedule(unaged, 0, aging),
+                    new MultiCoreScheduler(MultiCoreScheduler.Policy.PRIORITY, 1, MultiCoreScheduler.Balancing.STEAL)
+                            .schedule(unaged, 0, aging));
+        }
+        // P0 is picked without a context switch and finishes within one tick; both list it
+        List<Process> oneTick = List.of(new Process("P0", 1, 1, 4, 0), new Process("P1", 2, 7, 1, 0),
+                new Process("P2", 6, 9, 2, 0));
+        assertSameResult(new PriorityScheduler().schedule(oneTick, 0, 2),
+                new MultiCoreScheduler(MultiCoreScheduler.Policy.PRIORITY, 1, MultiCoreScheduler.Balancing.STEAL)
+                        .schedule(oneTick, 0, 2));
+        for (int i = 1; i <= 6; i++) {
+            List<Process> processes = TestLoader.mapToDomain(TestLoader.loadTestCase("AG/AG_test" + i + ".json").input.processes);
+            assertSameResult(new AGScheduler().schedule(processes, 0, 0),
+                    new MultiCoreScheduler(MultiCoreScheduler.Policy.AG, 1, MultiCoreScheduler.Balancing.PULL)
+                            .schedule(processes, 0, 0));
+        }
+    }
+
+    @Test
+    public void testMultiCore_AccountsForEveryProcess() throws IOException {
+        List<Process> processes = TestLoader.mapToDomain(TestLoader.loadTestCase("test_6.json").input.processes);
+        long totalBurst = processes.stream().mapToLong(Process::getBurstTime).sum();
+        // test_6 has no AG quantums, and AG rejects quantums below 2, so AG gets 4 for every process
+        List<Process> withQuantum = processes.stream().map(p -> new Process(p.getName(), p.getArrivalTime(),
+                p.getBurstTime(), p.getPriority(), 4)).toList();
+        for (MultiCoreScheduler.Policy policy : MultiCoreScheduler.Policy.values()) {
+            for (MultiCoreScheduler.Balancing balancing : MultiCoreScheduler.Balancing.values()) {
+                SchedulerResult result = new MultiCoreScheduler(policy, 3, balancing)
+                        .schedule(policy == MultiCoreScheduler.Policy.AG ? withQuantum : processes, 1, 2);
+                Assertions.assertEquals(processes.size(), result.processResults.size(), result.schedulerName);
+                Assertions.assertEquals(3, result.coreResults.size(), result.schedulerName);
+                long busy = 0, in = 0, out = 0;
+                for (SchedulerResult.CoreResult core : result.coreResults) {
+                    busy += core.busyTime;
+                    in += core.migrationsIn;
+                    out += core.migrationsOut;
+                }
+                Assertions.assertEquals(totalBurst, busy, result.schedulerName + ": busy time");
+                Assertions.assertEquals(in, out, result.schedulerName + ": migrations");
+                for (ProcessResult pr : result.processResults) {
+                    Assertions.assertTrue(pr.waitingTime >= 0 && pr.turnaroundTime == pr.waitingTime + pr.burstTime,
+                            result.schedulerName + ": times of " + pr.name);
+                }
+            }
+        }
+    }
+
+    private void assertSameResult(SchedulerResult expected, SchedulerResult actual) {
+        Assertions.assertEquals(expected.executionOrder, actual.executionOrder, actual.schedulerName);
+        for (int i = 0; i < expected.processResults.size(); i++) {
+            ProcessResult want = expected.processResults.get(i), got = actual.processResults.get(i);
+            Assertions.assertEquals(want.name, got.name, actual.schedulerName);
+            Assertions.assertEquals(want.waitingTime, got.waitingTime, actual.schedulerName + ": " + want.name);
+            Assertions.assertEquals(want.turnaroundTime, got.turnaroundTime, actual.schedulerName + ": " + want.name);
+            Assertions.assertEquals(want.extraInfo, got.extraInfo, actual.schedulerName + ": " + want.name);
+        }
+    }
+
+    // ==========================================
+    // MLFQ TESTS
+    // ==========================================
+
+    @Test
+    public void testMLFQ_DemotesAndPreempts() {
+        // P1 uses its level 0 quantum, is preempted at level 1 by P2's arrival, then
+        // finishes its level 1 quantum and runs out its burst at the bottom level
+        List<Process> processes = List.of(new Process("P1", 0, 20, 1, 0), new Process("P2", 5, 2, 1, 0));
+        SchedulerResult result = new MLFQScheduler(new int[] {2, 4, 8}, 0).schedule(processes, 0, 0);
+        Assertions.assertEquals(List.of("P1", "P2", "P1"), result.executionOrder);
+        Assertions.assertEquals(2, result.processResults.get(0).waitingTime);
+        Assertions.assertEquals(22, result.processResults.get(0).turnaroundTime);
+        Assertions.assertEquals(0, result.processResults.get(1).waitingTime);
+
+        // With a boost at 4, P1 is back at the top level with a fresh quantum, so P2
+        // (arriving at 5, same level) does not preempt it and waits until 6
+        result = new MLFQScheduler(new int[] {2, 4, 8}, 4).schedule(processes, 0, 0);
+        Assertions.assertEquals(List.of("P1", "P2", "P1"), result.executionOrder);
+        Assertions.assertEquals(1, result.processResults.get(1).waitingTime);
+    }
+
+    @Test
+    public void testMLFQ_OneLevelIsRoundRobin() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            TestCaseDTO testCase = TestLoader.loadTestCase("test_" + i + ".json");
+            List<Process> processes = TestLoader.mapToDomain(testCase.input.processes);
+            SchedulerResult rr = new RoundRobin().schedule(processes, 0, testCase.input.rrQuantum);
+            SchedulerResult mlfq = new MLFQScheduler(1, 0).schedule(processes, 0, testCase.input.rrQuantum);
+            for (int p = 0; p < processes.size(); p++) {
+                Assertions.assertEquals(rr.processResults.get(p).waitingTime, mlfq.processResults.get(p).waitingTime,
+                        "test_" + i + ": " + processes.get(p).getName());
+            }
+        }
+    }
+
+    // ==========================================
+    // CFS TESTS
+    // ==========================================
+
+    @Test
+    public void testCFS_SharesFollowWeights() {
+        // Three CPU-bound processes: while all run, each gets weight / total weight of the CPU
+        List<Process> processes = List.of(new Process("A", 0, 1000, 1, 0), new Process("B", 0, 1000, 2, 0),
+                new Process("C", 0, 1000, 4, 0));
+        SchedulerResult result = new CFSScheduler(24, 3).schedule(processes, 0, 0);
+        int a = CFSScheduler.weightOf(1), b = CFSScheduler.weightOf(2), c = CFSScheduler.weightOf(4);
+        double aDone = 1000.0 * (a + b + c) / a;
+        double bDone = aDone + (1000 - aDone * b / (a + b + c)) * (b + c) / b;
+        Assertions.assertEquals(aDone, result.processResults.get(0).turnaroundTime, 24);
+        Assertions.assertEquals(bDone, result.processResults.get(1).turnaroundTime, 24);
+        Assertions.assertEquals(3000, result.processResults.get(2).turnaroundTime);
+    }
+
+    @Test
+    public void testCFS_EqualWeightsShareEvenly() {
+        // Equal weights and a slice of 4 each: strict alternation, no slice shorter than 3
+        List<Process> processes = List.of(new Process("A", 0, 8, 1, 0), new Process("B", 0, 8, 1, 0));
+        SchedulerResult result = new CFSScheduler(8, 3).schedule(processes, 0, 0);
+        Assertions.assertEquals(List.of("A", "B", "A", "B"), result.executionOrder);
+        Assertions.assertEquals(12, result.processResults.get(0).turnaroundTime);
+        Assertions.assertEquals(16, result.processResults.get(1).turnaroundTime);
+    }
+
+    // ==========================================
+    // STRIDE SCHEDULING TESTS
+    // ==========================================
+
+    @Test
+    public void testStride_SharesFollowTickets() {
+        // A, B and C compete from time 0; D joins at 500 and gets its share of the CPU
+        // from then on, neither starved nor let ahead of the others
+        List<Process> processes = List.of(new Process("A", 0, 1000, 1, 0), new Process("B", 0, 1000, 2, 0),
+                new Process("C", 0, 1000, 4, 0), new Process("D", 500, 100, 1, 0));
+        SchedulerResult result = new StrideScheduler().schedule(processes, 0, 1);
+        int a = StrideScheduler.ticketsOf(1), b = StrideScheduler.ticketsOf(2), c = StrideScheduler.ticketsOf(4);
+        double dTurnaround = 100.0 * (a + b + c + a) / a;
+        Assertions.assertEquals(dTurnaround, result.processResults.get(3).turnaroundTime, 3);
+
+        // C, with the fewest tickets, is the only one left at the end
+        Assertions.assertEquals(3100, result.processResults.get(2).turnaroundTime);
+        double aShareBeforeFinish = 1000.0 / (result.processResults.get(0).turnaroundTime - 100);
+        Assertions.assertEquals((double) a / (a + b + c), aShareBeforeFinish, 0.01);
+    }
+
+    // ==========================================
+    // EDF AND DEADLINE TESTS
+    // ==========================================
+
+    @Test
+    public void testEDF_MeetsFeasibleDeadlines() {
+        // Feasible on one CPU; SJF runs A first and makes B miss by 2
+        List<Process> processes = List.of(new Process("A", 0, 2, 1, 0, 10), new Process("B", 0, 5, 1, 0, 6),
+                new Process("C", 1, 1, 1, 0, 2));
+        SchedulerResult edf = new EDFScheduler().schedule(processes, 0, 0);
+        Assertions.assertEquals(List.of("B", "C", "B", "A"), edf.executionOrder);
+        Assertions.assertEquals(0, edf.deadlineMisses);
+        Assertions.assertEquals(3, edf.deadlineProcesses);
+        Assertions.assertArrayEquals(new int[] {2, 0, 1},
+                edf.processResults.stream().mapToInt(pr -> pr.slack).toArray());
+
+        SchedulerResult sjf = new SJFPreemptive().schedule(processes, 0, 0);
+        Assertions.assertEquals(1, sjf.deadlineMisses);
+        Assertions.assertEquals(-2, sjf.processResults.get(1).slack);
+        Assertions.assertEquals(2, sjf.lateness.max());
+    }
+
+    @Test
+    public void testEDF_StreamingMatchesBatch() {
+        WorkloadGenerator generator = new WorkloadGenerator(11).poissonArrivals(9).exponentialBursts(8).deadlines(1.5, 4);
+        SchedulerResult batch = new EDFScheduler().schedule(generator.toTable(50_000), 1, 0);
+        SchedulerResult streamed = new EDFScheduler().summarize(generator.iterator(50_000), 1, 0);
+        Assertions.assertEquals(50_000, batch.deadlineProcesses);
+        Assertions.assertEquals(batch.deadlineMisses, streamed.deadlineMisses);
+        Assertions.assertEquals(batch.lateness.max(), streamed.lateness.max());
+        Assertions.assertEquals(batch.avgWaitingTime, streamed.avgWaitingTime, 1e-9);
+    }
+
+    // ==========================================
+    // TIMELINE TESTS
+    // ==========================================
+
+    @Test
+    public void testTimeline_MergesRepeatedDispatches() {
+        SchedulerResult result = new RoundRobin().schedule(List.of(new Process("P1", 0, 10, 1, 0)), 0, 1);
+        Timeline timeline = result.timeline;
+        Assertions.assertEquals(1, timeline.size());
+        Assertions.assertEquals(0, timeline.start(0));
+        Assertions.assertEquals(10, timeline.end(0));
+        Assertions.assertEquals(10, timeline.dispatches(0));
+        Assertions.assertEquals(10, result.executionOrder.size());
+        Assertions.assertEquals("P1", result.executionOrder.get(9));
+
+        // get() walks on from the previous call, and has to start over when going back
+        result = new RoundRobin().schedule(List.of(new Process("A", 0, 4, 1, 0), new Process("B", 6, 3, 1, 0)), 0, 1);
+        Assertions.assertEquals(2, result.timeline.size());
+        Assertions.assertEquals("B", result.executionOrder.get(5));
+        Assertions.assertEquals("A", result.executionOrder.get(3));
+        Assertions.assertEquals("B", result.executionOrder.get(4));
+        Assertions.assertEquals(List.of("A", "A", "A", "A", "B", "B", "B"), result.executionOrder);
+    }
+
+    @Test
+    public void testTimeline_KeepsSwitchesWithTheNextInterval() {
+        // P1 [0,2), switch, P2 [3,5), switch, P1 [6,8), switch, P2 [9,11)
+        SchedulerResult result = new RoundRobin().schedule(
+                List.of(new Process("P1", 0, 4, 1, 0), new Process("P2", 0, 4, 1, 0)), 1, 2);
+        Timeline timeline = result.timeline;
+        Assertions.assertEquals(4, timeline.size());
+        Assertions.assertArrayEquals(new int[] {0, 3, 6, 9},
+                IntStream.range(0, 4).map(timeline::start).toArray());
+        Assertions.assertArrayEquals(new int[] {0, 1, 1, 1},
+                IntStream.range(0, 4).map(timeline::switchTime).toArray());
+        Assertions.assertEquals(List.of("P1", "P2", "P1", "P2"), result.executionOrder);
+    }
+
+    @Test
+    public void testTimeline_CoversEveryBurst() throws IOException {
+        List<Process> processes = TestLoader.mapToDomain(TestLoader.loadTestCase("test_6.json").input.processes);
+        long totalBurst = processes.stream().mapToLong(Process::getBurstTime).sum();
+        List<SchedulerResult> results = List.of(
+                new SJFPreemptive().schedule(processes, 1, 2),
+                new RoundRobin().schedule(processes, 1, 2),
+                new PriorityScheduler().schedule(processes, 1, 2),
+                new MultiCoreScheduler(MultiCoreScheduler.Policy.RR, 3, MultiCoreScheduler.Balancing.STEAL)
+                        .schedule(processes, 1, 2));
+        for (SchedulerResult result : results) {
+            Timeline timeline = result.timeline;
+            long busy = 0;
+            int[] lastEnd = new int[3];
+            for (int i = 0; i < timeline.size(); i++) {
+                // Priority can dispatch a process that is preempted before it runs, leaving an empty interval
+                Assertions.assertTrue(timeline.start(i) - timeline.switchTime(i) >= lastEnd[timeline.core(i)]
+                        && timeline.end(i) >= timeline.start(i), result.schedulerName + ": interval " + i);
+                lastEnd[timeline.core(i)] = timeline.end(i);
+                busy += timeline.end(i) - timeline.start(i);
+            }
+            Assertions.assertEquals(totalBurst, busy, result.schedulerName + ": busy time");
+            // Random access and iteration see the same dispatches
+            List<String> order = result.executionOrder;
+            Assertions.assertEquals(order, Arrays.asList(order.toArray(new String[0])), result.schedulerName);
+            for (int i = 0; i < order.size(); i++) {
+                Assertions.assertEquals(order.toArray()[i], order.get(i), result.schedulerName + ": dispatch " + i);
+            }
+        }
+    }
+
+    // ==========================================
+    // METRICS TESTS
+    // ==========================================
+
+    @Test
+    public void testMetrics_CountSwitchesAndPreemptions() {
+        // B runs, C's earlier deadline preempts it, B resumes, then A, then D after an idle
+        // gap: four switches (each costing 1), one preemption
+        List<Process> processes = List.of(new Process("A", 0, 2, 1, 0, 10), new Process("B", 0, 5, 1, 0, 6),
+                new Process("C", 1, 1, 1, 0, 2), new Process("D", 20, 2, 1, 0, 0));
+        SchedulerResult result = new EDFScheduler().schedule(processes, 1, 0);
+        SchedulerMetrics metrics = result.metrics;
+        Assertions.assertEquals(4, metrics.contextSwitches);
+        Assertions.assertEquals(4, metrics.switchTime);
+        Assertions.assertEquals(1, metrics.preemptions);
+        Assertions.assertArrayEquals(new int[] {0, 1, 0, 0},
+                result.processResults.stream().mapToInt(pr -> pr.preemptions).toArray());
+        Assertions.assertArrayEquals(new int[] {9, 0, 1, 1},
+                result.processResults.stream().mapToInt(pr -> pr.responseTime).toArray());
+        // A finishes at 11, and D runs from 21 to 23 after its switch
+        Assertions.assertEquals(23, metrics.makespan);
+        Assertions.assertEquals(9, metrics.idleTime());
+        Assertions.assertEquals(10.0 / 23, metrics.utilization(), 1e-9);
+        Assertions.assertEquals(4.0 / 23, metrics.throughput(), 1e-9);
+    }
+
+    @Test
+    public void testMetrics_PreemptedDuringSwitchIsNotDispatched() {
+        // A runs, B preempts it, C arrives during the switch to B and takes the CPU
+        // before B runs: B keeps its order entry but only starts at 9, unpreempted
+        List<Process> processes = List.of(new Process("A", 0, 5, 3, 0), new Process("B", 1, 3, 2, 0),
+                new Process("C", 2, 2, 1, 0));
+        List<SchedulerResult> results = List.of(new PriorityScheduler().schedule(processes, 2, 0),
+                new MultiCoreScheduler(MultiCoreScheduler.Policy.PRIORITY, 1, MultiCoreScheduler.Balancing.PULL)
+                        .schedule(processes, 2, 0));
+        for (SchedulerResult result : results) {
+            Assertions.assertEquals(List.of("A", "B", "C", "B", "A"), result.executionOrder, result.schedulerName);
+            Assertions.assertArrayEquals(new int[] {0, 8, 3},
+                    result.processResults.stream().mapToInt(pr -> pr.responseTime).toArray(), result.schedulerName);
+            Assertions.assertArrayEquals(new int[] {1, 0, 0},
+                    result.processResults.stream().mapToInt(pr -> pr.preemptions).toArray(), result.schedulerName);
+            Assertions.assertEquals(4, result.metrics.contextSwitches, result.schedulerName);
+            Assertions.assertEquals(1, result.metrics.preemptions, result.schedulerName);
+        }
+    }
+
+    @Test
+    public void testMetrics_MatchTimeline() throws IOException {
+        for (int i = 1; i <= 6; i++) {
+            TestCaseDTO testCase = TestLoader.loadTestCase("test_" + i + ".json");
+            List<Process> processes = TestLoader.mapToDomain(testCase.input.processes);
+            int cs = testCase.input.contextSwitch, rrQ = testCase.input.rrQuantum;
+            List<SchedulerResult> results = List.of(
+                    new SJFPreemptive().schedule(processes, cs, rrQ),
+                    new RoundRobin().schedule(processes, cs, rrQ),
+                    new PriorityScheduler().schedule(processes, cs, testCase.input.agingInterval),
+                    new MultiCoreScheduler(MultiCoreScheduler.Policy.SJF, 2, MultiCoreScheduler.Balancing.PULL)
+                            .schedule(processes, cs, rrQ));
+            for (SchedulerResult result : results) {
+                String name = "test_" + i + ": " + result.schedulerName;
+                SchedulerMetrics metrics = result.metrics;
+                Timeline timeline = result.timeline;
+                int cores = Math.max(1, result.coreResults.size());
+                long busy = 0, switching = 0, switches = 0, gaps = 0;
+                int[] last = new int[cores], lastEnd = new int[cores];
+                Arrays.fill(last, -1);
+                for (int t = 0; t < timeline.size(); t++) {
+                    int c = timeline.core(t);
+                    gaps += timeline.start(t) - timeline.switchTime(t) - lastEnd[c];
+                    lastEnd[c] = timeline.end(t);
+                    switching += timeline.switchTime(t);
+                    busy += timeline.end(t) - timeline.start(t);
+                    if (last[c] != -1 && last[c] != timeline.process(t)) switches++;
+                    last[c] = timeline.process(t);
+                }
+                for (int end : lastEnd) gaps += metrics.makespan - end;
+                Assertions.assertEquals(busy, metrics.busyTime, name + ": busy time");
+                Assertions.assertEquals(switching, metrics.switchTime, name + ": switch time");
+                Assertions.assertEquals(switches, metrics.contextSwitches, name + ": context switches");
+                Assertions.assertEquals(gaps, metrics.idleTime(), name + ": idle time");
+                Assertions.assertEquals(processes.size(), metrics.completed, name);
+                Assertions.assertEquals(metrics.preemptions,
+                        result.processResults.stream().mapToLong(pr -> pr.preemptions).sum(), name + ": preemptions");
+                Assertions.assertTrue(metrics.preemptions <= metrics.contextSwitches, name);
+                for (ProcessResult pr : result.processResults) {
+                    Assertions.assertTrue(pr.responseTime >= 0 && pr.responseTime <= pr.waitingTime,
+                            name + ": response time of " + pr.name);
+                }
+                Assertions.assertEquals(result.responseTimes.max(),
+                        result.processResults.stream().mapToInt(pr -> pr.responseTime).max().getAsInt(), name);
+            }
+        }
+    }
+
+    // ==========================================
+    // CHECKPOINT TESTS
+    // ==========================================
+
+    @Test
+    public void testCheckpoint_ResumeMatchesUninterruptedRun() throws IOException {
+        WorkloadGenerator generator = new WorkloadGenerator(5).poissonArrivals(10).exponentialBursts(8).deadlines(1.5, 4);
+        List<BaseScheduler> schedulers = List.of(new SJFPreemptive(), new RoundRobin(), new PriorityScheduler(),
+                new AGScheduler(), new MLFQScheduler(), new CFSScheduler(), new StrideScheduler(), new EDFScheduler(),
+                new MultiCoreScheduler(MultiCoreScheduler.Policy.RR, 3, MultiCoreScheduler.Balancing.STEAL),
+                new MultiCoreScheduler(MultiCoreScheduler.Policy.PRIORITY, 3, MultiCoreScheduler.Balancing.PUSH),
+                new MultiCoreScheduler(MultiCoreScheduler.Policy.AG, 3, MultiCoreScheduler.Balancing.PULL));
+        Path dir = Files.createTempDirectory("snapshots");
+        try {
+            for (BaseScheduler scheduler : schedulers) {
+                SchedulerResult expected = scheduler.summarize(generator.iterator(5_000), 1, 3);
+                Checkpoints checkpoints = new Checkpoints(dir.resolve("run-%d.snapshot"), 10_000);
+                assertSameSummary(expected, scheduler.summarize(generator.iterator(5_000), 1, 3, checkpoints));
+                for (int time = 10_000; Files.exists(checkpoints.fileFor(time)); time += 10_000) {
+                    Snapshot snapshot = Snapshot.read(checkpoints.fileFor(time));
+                    Assertions.assertEquals(time, snapshot.time());
+                    assertSameSummary(expected, scheduler.resume(snapshot, generator.iterator(5_000)));
+                    Files.delete(checkpoints.fileFor(time));
+                }
+            }
+            Snapshot other = Snapshot.read(writeOneSnapshot(new RoundRobin(), dir));
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> new SJFPreemptive().resume(other, generator.iterator(5_000)));
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void testCheckpoint_ForkAppliesNewParameter() throws IOException {
+        // The first snapshot is taken when the first process arrives, before anything has
+        // run, so a fork from it with a new parameter is a fresh run with that parameter
+        List<Process> processes = new ArrayList<>();
+        new WorkloadGenerator(9).poissonArrivals(6).exponentialBursts(8).iterator(2_000).forEachRemaining(p ->
+                processes.add(new Process(p.getName(), p.getArrivalTime() + 100, p.getBurstTime(), p.getPriority(),
+                        p.getQuantum())));
+        int firstArrival = processes.get(0).getArrivalTime();
+        List<BaseScheduler> schedulers = List.of(new RoundRobin(), new PriorityScheduler(), new MLFQScheduler(),
+                new MultiCoreScheduler(MultiCoreScheduler.Policy.PRIORITY, 2, MultiCoreScheduler.Balancing.STEAL));
+        Path dir = Files.createTempDirectory("snapshots");
+        try {
+            for (BaseScheduler scheduler : schedulers) {
+                Checkpoints checkpoints = new Checkpoints(dir.resolve("fork-%d.snapshot"), 50);
+                scheduler.summarize(processes.iterator(), 1, 3, checkpoints);
+                Snapshot snapshot = Snapshot.read(checkpoints.fileFor(firstArrival));
+                Assertions.assertEquals(3, snapshot.parameter());
+                assertSameSummary(scheduler.summarize(processes.iterator(), 1, 7),
+                        scheduler.resume(snapshot, processes.iterator(), 1, 7, null));
+            }
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : files.toList()) Files.delete(file);
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private Path writeOneSnapshot(BaseScheduler scheduler, Path dir) {
+        Path file = dir.resolve("one.snapshot");
+        scheduler.summarize(List.of(new Process("P1", 0, 20, 1, 0)).iterator(), 0, 2, new Checkpoints(file, 5));
+        return file;
+    }
+
+    // Summaries keep no per-process results, so compare everything they do keep
+    private void assertSameSummary(SchedulerResult expected, SchedulerResult actual) {
+        String name = actual.schedulerName;
+        Assertions.assertEquals(expected.avgWaitingTime, actual.avgWaitingTime, 0, name);
+        Assertions.assertEquals(expected.avgTurnaroundTime, actual.avgTurnaroundTime, 0, name);
+        Assertions.assertEquals(expected.deadlineMisses, actual.deadlineMisses, name);
+        List<LatencyHistogram> want = List.of(expected.waitingTimes, expected.turnaroundTimes,
+                expected.responseTimes, expected.lateness);
+        List<LatencyHistogram> got = List.of(actual.waitingTimes, actual.turnaroundTimes,
+                actual.responseTimes, actual.lateness);
+        for (int i = 0; i < want.size(); i++) {
+            Assertions.assertEquals(want.get(i).count(), got.get(i).count(), name + ": histogram " + i);
+            Assertions.assertEquals(want.get(i).max(), got.get(i).max(), name + ": histogram " + i);
+            for (double percent : new double[] {10, 50, 90, 99}) {
+                Assertions.assertEquals(want.get(i).percentile(percent), got.get(i).percentile(percent),
+                        name + ": histogram " + i + " p" + percent);
+            }
+        }
+        Assertions.assertEquals(expected.metrics.contextSwitches, actual.metrics.contextSwitches, name);
+        Assertions.assertEquals(expected.metrics.preemptions, actual.metrics.preemptions, name);
+        Assertions.assertEquals(expected.metrics.idleTime(), actual.metrics.idleTime(), name);
+        Assertions.assertEquals(expected.coreResults.size(), actual.coreResults.size(), name);
+        for (int c = 0; c < expected.coreResults.size(); c++) {
+            SchedulerResult.CoreResult a = expected.coreResults.get(c), b = actual.coreResults.get(c);
+            Assertions.assertEquals(a.busyTime, b.busyTime, name + ": core " + c);
+            Assertions.assertEquals(a.dispatches, b.dispatches, name + ": core " + c);
+            Assertions.assertEquals(a.migrationsIn, b.migrationsIn, name + ": core " + c);
+        }
+    }
 
     // ==========================================
     // HELPER METHODS
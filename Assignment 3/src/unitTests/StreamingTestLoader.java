@@ -0,0 +1,337 @@
+package unitTests;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import models.Process;
+import models.SchedulerResult.ProcessResult;
+import org.junit.jupiter.api.Assertions;
+import schedulers.SchedulerEventSink;
+import schedulers.StreamingScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Test-case loader built on Jackson's streaming JsonParser, for files too big for
+ * TestLoader's tree model.
+ *
+ * Nothing is read into a tree. Processes are parsed one at a time straight into a
+ * StreamingScheduler, and each expected section (execution order, process results,
+ * averages) is read by its own parser, in step with the scheduler's events. Memory
+ * stays flat whatever the file size: only processes that finished ahead of an
+ * earlier-arrived one are held until their expected entry comes up.
+ *
+ * The processes must be listed in arrival order, and so must the expected process
+ * results (which is how the test cases are written).
+ */
+public class StreamingTestLoader {
+    private static final JsonFactory factory = new JsonFactory();
+    private static final String TEST_DIR = "TestCases/";
+
+    /** Scalar inputs and the expected sections a test case has, found in one pass. */
+    public static class Header {
+        public int contextSwitch;
+        public int rrQuantum;
+        public int agingInterval;
+        // "SJF", "RR", "Priority"... for standard cases; empty for AG cases, whose
+        // expectedOutput is a single result
+        public final List<String> expectedSchedulers = new ArrayList<>();
+    }
+
+    public static Header readHeader(String filename) throws IOException {
+        Header header = new Header();
+        try (JsonParser parser = openAt(filename, "input")) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "contextSwitch" -> header.contextSwitch = parser.getIntValue();
+                    case "rrQuantum" -> header.rrQuantum = parser.getIntValue();
+                    case "agingInterval" -> header.agingInterval = parser.getIntValue();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        try (JsonParser parser = openAt(filename, "expectedOutput")) {
+            List<String> keys = new ArrayList<>();
+            boolean single = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                single |= field.equals("executionOrder");
+                keys.add(field);
+                parser.nextToken();
+                parser.skipChildren();
+            }
+            if (!single) header.expectedSchedulers.addAll(keys);
+        }
+        return header;
+    }
+
+    /** Lazily parses input.processes. The file is closed once the array ends. */
+    public static Iterator<Process> processes(String filename) throws IOException {
+        JsonParser parser = openAt(filename, "input", "processes");
+        expect(parser, JsonToken.START_ARRAY);
+        return new Iterator<>() {
+            private Process next = read();
+
+            private Process read() {
+                try {
+                    if (parser.nextToken() != JsonToken.START_OBJECT) {
+                        parser.close();
+                        return null;
+                    }
+                    String name = null;
+                    int arrival = 0, burst = 0, priority = 0, quantum = 0;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.currentName();
+                        parser.nextToken();
+                        switch (field) {
+                            case "name" -> name = parser.getText();
+                            case "arrival" -> arrival = parser.getIntValue();
+                            case "burst" -> burst = parser.getIntValue();
+                            case "priority" -> priority = parser.getIntValue();
+                            case "quantum" -> quantum = parser.getIntValue();
+                            default -> parser.skipChildren();
+                        }
+                    }
+                    return new Process(name, arrival, burst, priority, quantum);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Process next() {
+                if (next == null) throw new NoSuchElementException();
+                Process current = next;
+                next = read();
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Streams the test case's processes through the scheduler and asserts every
+     * event against expectedOutput (or expectedOutput.expectedKey when not null)
+     * as it happens.
+     */
+    public static void check(String filename, String expectedKey, StreamingScheduler scheduler,
+                             int contextSwitchTime, int parameter) throws IOException {
+        String[] scope = expectedKey == null ? new String[] {"expectedOutput"}
+                : new String[] {"expectedOutput", expectedKey};
+        try (Checker checker = new Checker(filename, scope)) {
+            scheduler.stream(processes(filename), contextSwitchTime, parameter, checker);
+            checker.finish();
+        }
+    }
+
+    /** Compares scheduler events against the expected sections, one parser per section. */
+    private static class Checker implements SchedulerEventSink, AutoCloseable {
+        private final String filename;
+        private final String[] scope;
+        private final String label;
+        private final JsonParser order;
+        private final JsonParser results;
+        private final Map<Long, ProcessResult> pending = new HashMap<>();
+        private long nextResult = 0;
+        private int dispatches = 0;
+        private double totalWaiting = 0, totalTurnaround = 0;
+
+        Checker(String filename, String[] scope) throws IOException {
+            this.filename = filename;
+            this.scope = scope;
+            this.label = filename + " " + scope[scope.length - 1];
+            this.order = openAt(filename, append(scope, "executionOrder"));
+            JsonParser resultsParser = null;
+            try {
+                expect(order, JsonToken.START_ARRAY);
+                resultsParser = openAt(filename, append(scope, "processResults"));
+                expect(resultsParser, JsonToken.START_ARRAY);
+            } catch (IOException | RuntimeException e) {
+                order.close();
+                if (resultsParser != null) resultsParser.close();
+                throw e;
+            }
+            this.results = resultsParser;
+        }
+
+        @Override
+        public void onDispatch(int time, long id, String name) {
+            try {
+                // Messages are only built on failure: this runs once per dispatch
+                if (order.nextToken() != JsonToken.VALUE_STRING) {
+                    Assertions.fail("Execution Order Mismatch for " + label + ": extra entry " + name
+                            + " at " + dispatches);
+                }
+                if (!order.getText().equals(name)) {
+                    Assertions.fail("Execution Order Mismatch for " + label + " at entry " + dispatches
+                            + ": expected " + order.getText() + " got " + name);
+                }
+                dispatches++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void onPreemptedDuringSwitch(int time, long id, String name) {
+            onDispatch(time, id, name);  // Also an execution order entry
+        }
+
+        @Override
+        public void onCompletion(int time, long id, ProcessResult result) {
+            totalWaiting += result.waitingTime;
+            totalTurnaround += result.turnaroundTime;
+            pending.put(id, result);
+            // Expected results are in arrival order; check every one that has finished
+            while (pending.containsKey(nextResult)) {
+                checkResult(pending.remove(nextResult++));
+            }
+        }
+
+        private void checkResult(ProcessResult actual) {
+            try {
+                if (results.nextToken() != JsonToken.START_OBJECT) {
+                    Assertions.fail("Process " + actual.name + " not expected in " + label);
+                }
+                String name = null, history = null;
+                int waiting = 0, turnaround = 0;
+                while (results.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = results.currentName();
+                    results.nextToken();
+                    switch (field) {
+                        case "name" -> name = results.getText();
+                        case "waitingTime" -> waiting = results.getIntValue();
+                        case "turnaroundTime" -> turnaround = results.getIntValue();
+                        case "quantumHistory" -> history = readIntArray(results);
+                        default -> results.skipChildren();
+                    }
+                }
+                if (!actual.name.equals(name) || waiting != actual.waitingTime
+                        || turnaround != actual.turnaroundTime) {
+                    Assertions.assertEquals(name, actual.name, "Process order mismatch in " + label);
+                    Assertions.assertEquals(waiting, actual.waitingTime,
+                            "Waiting Time mismatch for process " + name + " in " + label);
+                    Assertions.assertEquals(turnaround, actual.turnaroundTime,
+                            "Turnaround Time mismatch for process " + name + " in " + label);
+                }
+                if (history != null) {
+                    String actualHistory = actual.extraInfo.replace(" ", "");
+                    Assertions.assertTrue(actualHistory.contains(history),
+                            "Quantum History mismatch for " + name +
+                                    "\nExpected to contain: " + history +
+                                    "\nActual output: " + actualHistory);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() throws IOException {
+            Assertions.assertEquals(JsonToken.END_ARRAY, order.nextToken(),
+                    "Execution Order Mismatch for " + label + ": only " + dispatches + " entries");
+            Assertions.assertTrue(pending.isEmpty(), "Unmatched results in " + label);
+            Assertions.assertEquals(JsonToken.END_ARRAY, results.nextToken(),
+                    "Missing processes in output of " + label + " after " + nextResult);
+
+            double expectedWaiting = Double.NaN, expectedTurnaround = Double.NaN;
+            try (JsonParser averages = openAt(filename, scope)) {
+                while (averages.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = averages.currentName();
+                    averages.nextToken();
+                    switch (field) {
+                        case "averageWaitingTime" -> expectedWaiting = averages.getDoubleValue();
+                        case "averageTurnaroundTime" -> expectedTurnaround = averages.getDoubleValue();
+                        default -> averages.skipChildren();
+                    }
+                }
+            }
+            long n = Math.max(1, nextResult);
+            Assertions.assertEquals(expectedWaiting, totalWaiting / n, 0.01,
+                    "Average Waiting Time Mismatch for " + label);
+            Assertions.assertEquals(expectedTurnaround, totalTurnaround / n, 0.01,
+                    "Average Turnaround Time Mismatch for " + label);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                order.close();
+            } finally {
+                results.close();
+            }
+        }
+    }
+
+    /**
+     * Opens the file and moves to the value at the given field path, leaving it as
+     * the current token. Fields on the way that are not on the path are skipped
+     * without being read into memory.
+     */
+    private static JsonParser openAt(String filename, String... path) throws IOException {
+        JsonParser parser = factory.createParser(new File(TEST_DIR + filename));
+        try {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            for (int depth = 0; depth < path.length; depth++) {
+                if (depth > 0) expect(parser, JsonToken.START_OBJECT);
+                if (!findField(parser, path[depth])) {
+                    throw new IOException("No " + String.join(".", path) + " in " + filename);
+                }
+                parser.nextToken();
+            }
+            return parser;
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    // Moves to the value of the named field in the current object
+    private static boolean findField(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (parser.currentName().equals(name)) return true;
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static String readIntArray(JsonParser parser) throws IOException {
+        StringBuilder text = new StringBuilder("[");
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (text.length() > 1) text.append(',');
+            text.append(parser.getIntValue());
+        }
+        return text.append(']').toString();
+    }
+
+    private static void expect(JsonParser parser, JsonToken expected) throws IOException {
+        expect(parser, parser.currentToken(), expected);
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual + " at " + parser.currentLocation());
+        }
+    }
+
+    private static String[] append(String[] path, String field) {
+        String[] longer = Arrays.copyOf(path, path.length + 1);
+        longer[path.length] = field;
+        return longer;
+    }
+}
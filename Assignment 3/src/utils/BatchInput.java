@@ -0,0 +1,131 @@
+package utils;
+
+import models.ProcessTable;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Non-interactive counterpart of InputHandler: reads the same values in the same
+ * order, but from a file or stdin, without prompts.
+ *
+ * Tokens are split on whitespace by scanning raw bytes from a large buffer, and
+ * integers are parsed straight from those bytes, so there is no Scanner regex
+ * matching and no String per number. Bad input fails fast with the token number,
+ * since there is nobody to ask again.
+ */
+public class BatchInput implements Closeable {
+    private final InputStream in;
+    private final byte[] buffer = new byte[1 << 16];
+    private int position = 0, limit = 0;
+    private byte[] token = new byte[64];
+    private long tokenCount = 0;
+
+    public BatchInput(InputStream in) {
+        this.in = in;
+    }
+
+    /** Opens a file, or stdin when the path is null or "-". */
+    public static BatchInput open(String path) throws IOException {
+        return new BatchInput(path == null || path.equals("-") ? System.in : new FileInputStream(path));
+    }
+
+    /**
+     * Reads {@code count} processes: name, arrival, burst, priority and, if
+     * includeQuantum, quantum (the same fields InputHandler.getProcesses asks for).
+     */
+    public ProcessTable readProcesses(int count, boolean includeQuantum) {
+        ProcessTable.Builder builder = new ProcessTable.Builder(count);
+        for (int i = 0; i < count; i++) {
+            String name = nextToken("process name");
+            int arrival = nextInt("arrival time");
+            int burst = nextInt("burst time");
+            int priority = nextInt("priority");
+            int quantum = includeQuantum ? nextInt("quantum") : 0;
+            builder.add(name, arrival, burst, priority, quantum);
+        }
+        return builder.build();
+    }
+
+    /** Next whitespace separated token as a String. */
+    public String nextToken(String what) {
+        int length = readToken(what);
+        return new String(token, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /** Next token as an int; {@code what} names the field in error messages. */
+    public int nextInt(String what) {
+        int length = readToken(what);
+        int i = 0;
+        boolean negative = false;
+        if (token[0] == '-' || token[0] == '+') {
+            negative = token[0] == '-';
+            i = 1;
+        }
+        if (i == length) throw notAnInt(what, length);
+
+        // Accumulate negatively so Integer.MIN_VALUE parses too
+        int value = 0;
+        for (; i < length; i++) {
+            int digit = token[i] - '0';
+            if (digit < 0 || digit > 9 || value < (Integer.MIN_VALUE + digit) / 10) {
+                throw notAnInt(what, length);
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Integer.MIN_VALUE) throw notAnInt(what, length);
+            value = -value;
+        }
+        return value;
+    }
+
+    private IllegalArgumentException notAnInt(String what, int length) {
+        return new IllegalArgumentException("Expected an integer for " + what + " but found '"
+                + new String(token, 0, length, StandardCharsets.UTF_8) + "' (token " + tokenCount + ")");
+    }
+
+    // Copies the next token into `token` and returns its length
+    private int readToken(String what) {
+        int b;
+        do {
+            b = read();
+        } while (b >= 0 && b <= ' ');  // Whitespace and other control characters
+        if (b < 0) throw new IllegalArgumentException("Input ended before " + what + " (token " + (tokenCount + 1) + ")");
+
+        int length = 0;
+        do {
+            if (length == token.length) token = Arrays.copyOf(token, length * 2);
+            token[length++] = (byte) b;
+            b = read();
+        } while (b > ' ');
+        tokenCount++;
+        return length;
+    }
+
+    // Next byte as 0..255, or -1 at the end of input
+    private int read() {
+        if (position == limit) {
+            try {
+                limit = in.read(buffer, 0, buffer.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != System.in) in.close();
+    }
+}
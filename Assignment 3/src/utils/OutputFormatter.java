@@ -1,56 +1,390 @@
 package utils;
 
+import models.LatencyHistogram;
+import models.SchedulerMetrics;
 import models.SchedulerResult;
+import models.SchedulerResult.CoreResult;
 import models.SchedulerResult.ProcessResult;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
 
 public class OutputFormatter {
 
+    /**
+     * TEXT is the readable report. CSV writes one row per process, JSONL one JSON
+     * object per line (processes, then the execution order, then the averages and
+     * latency percentiles), and SUMMARY only the averages and percentiles, skipping the
+     * per-process rows and the execution order. Run metrics (context switches,
+     * preemptions, idle time, utilization, throughput), multi-core results' per-core
+     * statistics, and the slack and misses of results with deadlines are in every mode
+     * but CSV, whose rows carry each process's response time and preemptions.
+     */
+    public enum Mode {
+        TEXT, CSV, JSONL, SUMMARY;
+
+        public static Mode parse(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown output mode " + name + " (text, csv, jsonl or summary)");
+            }
+        }
+    }
+
+    // Every mode writes through this one buffer, flushed once per result
+    private final Writer out;
+    private final Mode mode;
+    private boolean csvHeaderWritten = false;
+
+    /** Prints to stdout. Use one per run, so the CSV header is written once, before the first row. */
+    public OutputFormatter(Mode mode) {
+        this(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out)), 1 << 20), mode);
+    }
+
+    public OutputFormatter(Writer out, Mode mode) {
+        this.out = out;
+        this.mode = mode;
+    }
+
     public static void printResult(SchedulerResult result) {
-        System.out.println("\n" + "=".repeat(70));
-        System.out.println(result.schedulerName);
-        System.out.println("=".repeat(70));
-        
+        new OutputFormatter(Mode.TEXT).print(result);
+    }
+
+    public void print(SchedulerResult result) {
+        System.out.flush(); // Keep anything already printed through System.out ahead of us
+        try {
+            switch (mode) {
+                case TEXT -> printText(result);
+                case CSV -> printCsv(result);
+                case JSONL -> printJsonLines(result);
+                case SUMMARY -> printSummary(result);
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void printText(SchedulerResult result) throws IOException {
+        out.write("\n" + "=".repeat(70) + "\n");
+        out.write(result.schedulerName + "\n");
+        out.write("=".repeat(70) + "\n");
+
         printExecutionOrder(result);
         printProcessDetails(result);
         printAverages(result);
+        printMetrics(result);
+        if (result.deadlineProcesses > 0) printDeadlines(result);
+        if (!result.coreResults.isEmpty()) printCores(result);
     }
-    
-    private static void printExecutionOrder(SchedulerResult result) {
-        System.out.println("\nExecution Order:");
-        System.out.println("-".repeat(70));
-        
+
+    private void printExecutionOrder(SchedulerResult result) throws IOException {
+        out.write("\nExecution Order:\n");
+        out.write("-".repeat(70) + "\n");
+
         if (!result.executionOrder.isEmpty()) {
-            System.out.println(String.join(" → ", result.executionOrder));
+            // Written name by name rather than joined into one huge string first
+            boolean first = true;
+            for (String name : result.executionOrder) {
+                if (!first) out.write(" → ");
+                out.write(name);
+                first = false;
+            }
+            out.write('\n');
+        }
+    }
+
+    private void printProcessDetails(SchedulerResult result) throws IOException {
+        out.write("\nProcess Details:\n");
+        out.write("-".repeat(70) + "\n");
+        out.write(String.format("%-10s %-10s %-10s %-10s %-15s %-15s%n",
+                "Process", "Arrival", "Burst", "Priority", "Waiting Time", "Turnaround Time"));
+        out.write("-".repeat(70) + "\n");
+
+        // Same layout as "%-10s %-10d %-10d %-10d %-15d %-15d", without a Formatter per row
+        StringBuilder row = new StringBuilder(96);
+        for (ProcessResult pr : result.processResults) {
+            row.setLength(0);
+            pad(row, pr.name, 10).append(' ');
+            pad(row, Integer.toString(pr.arrivalTime), 10).append(' ');
+            pad(row, Integer.toString(pr.burstTime), 10).append(' ');
+            pad(row, Integer.toString(pr.priority), 10).append(' ');
+            pad(row, Integer.toString(pr.waitingTime), 15).append(' ');
+            pad(row, Integer.toString(pr.turnaroundTime), 15).append('\n');
+            String extraInfo = pr.getExtraInfo();
+            if (!extraInfo.isEmpty()) {
+                row.append("  ").append(extraInfo).append('\n');
+            }
+            if (pr.hasDeadline()) {
+                row.append("  Deadline: ").append(pr.deadline).append(", slack: ").append(pr.slack)
+                   .append(pr.missedDeadline() ? " (missed)\n" : "\n");
+            }
+            out.append(row);
+        }
+    }
+
+    private void printAverages(SchedulerResult result) throws IOException {
+        out.write("\nAverage Times:\n");
+        out.write("-".repeat(70) + "\n");
+        out.write(String.format("Average Waiting Time: %.2f%n", result.avgWaitingTime));
+        out.write(String.format("Average Turnaround Time: %.2f%n", result.avgTurnaroundTime));
+    }
+
+    private void printMetrics(SchedulerResult result) throws IOException {
+        SchedulerMetrics metrics = result.metrics;
+        out.write("\nMetrics:\n");
+        out.write("-".repeat(70) + "\n");
+        out.write(String.format("Context Switches: %d (%d time units)%n", metrics.contextSwitches, metrics.switchTime));
+        out.write(String.format("Preemptions: %d%n", metrics.preemptions));
+        out.write(String.format("CPU Utilization: %.2f%% (idle %d time units)%n", metrics.utilization() * 100,
+                metrics.idleTime()));
+        out.write(String.format("Throughput: %.4f processes per time unit%n", metrics.throughput()));
+        out.write("Response time (p50/p90/p99/p99.9/max): " + percentiles(result.responseTimes) + "\n");
+    }
+
+    private void printDeadlines(SchedulerResult result) throws IOException {
+        out.write("\nDeadlines:\n");
+        out.write("-".repeat(70) + "\n");
+        out.write(String.format("Missed: %d of %d (%.2f%%)%n", result.deadlineMisses, result.deadlineProcesses,
+                100.0 * result.deadlineMisses / result.deadlineProcesses));
+        if (result.deadlineMisses > 0) {
+            out.write("Lateness of missed (p50/p90/p99/p99.9/max): " + percentiles(result.lateness) + "\n");
+        }
+    }
+
+    private void printCores(SchedulerResult result) throws IOException {
+        out.write("\nCores:\n");
+        out.write("-".repeat(70) + "\n");
+        out.write(String.format("%-6s %-12s %-12s %-12s %-12s %-12s%n",
+                "Core", "Busy", "Switching", "Dispatches", "Migrations", "Utilization"));
+        out.write("-".repeat(70) + "\n");
+        for (CoreResult core : result.coreResults) {
+            out.write(String.format("%-6d %-12d %-12d %-12d %-12s %.1f%%%n", core.core, core.busyTime,
+                    core.switchTime, core.dispatches, core.migrationsIn + " in/" + core.migrationsOut + " out",
+                    core.utilization * 100));
+        }
+    }
+
+    private static StringBuilder pad(StringBuilder row, String value, int width) {
+        row.append(value);
+        for (int i = value.length(); i < width; i++) row.append(' ');
+        return row;
+    }
+
+    // One row per process; the header is written once per run, before the first row
+    private void printCsv(SchedulerResult result) throws IOException {
+        if (!csvHeaderWritten) {
+            out.write("scheduler,process,arrival,burst,priority,waitingTime,turnaroundTime,responseTime,preemptions,"
+                    + "extraInfo\n");
+            csvHeaderWritten = true;
+        }
+        String scheduler = csvField(result.schedulerName);
+        StringBuilder row = new StringBuilder(96);
+        for (ProcessResult pr : result.processResults) {
+            row.setLength(0);
+            row.append(scheduler).append(',').append(csvField(pr.name))
+               .append(',').append(pr.arrivalTime)
+               .append(',').append(pr.burstTime)
+               .append(',').append(pr.priority)
+               .append(',').append(pr.waitingTime)
+               .append(',').append(pr.turnaroundTime)
+               .append(',').append(pr.responseTime)
+               .append(',').append(pr.preemptions)
+               .append(',').append(csvField(pr.getExtraInfo()))
+               .append('\n');
+            out.append(row);
         }
     }
-    
-    private static void printProcessDetails(SchedulerResult result) {
-        System.out.println("\nProcess Details:");
-        System.out.println("-".repeat(70));
-        System.out.printf("%-10s %-10s %-10s %-10s %-15s %-15s%n", 
-                         "Process", "Arrival", "Burst", "Priority", "Waiting Time", "Turnaround Time");
-        System.out.println("-".repeat(70));
-        
+
+    private void printJsonLines(SchedulerResult result) throws IOException {
+        String scheduler = jsonString(result.schedulerName);
+        StringBuilder line = new StringBuilder(128);
         for (ProcessResult pr : result.processResults) {
-            System.out.printf("%-10s %-10d %-10d %-10d %-15d %-15d%n",
-                            pr.name,
-                            pr.arrivalTime,
-                            pr.burstTime,
-                            pr.priority,
-                            pr.waitingTime,
-                            pr.turnaroundTime);
-            
-            if (!pr.extraInfo.isEmpty()) {
-                System.out.println("  " + pr.extraInfo);
-            }
-        }
-    }
-    
-   
-    private static void printAverages(SchedulerResult result) {
-        System.out.println("\nAverage Times:");
-        System.out.println("-".repeat(70));
-        System.out.printf("Average Waiting Time: %.2f%n", result.avgWaitingTime);
-        System.out.printf("Average Turnaround Time: %.2f%n", result.avgTurnaroundTime);
+            line.setLength(0);
+            line.append("{\"type\":\"process\",\"scheduler\":").append(scheduler)
+                .append(",\"name\":").append(jsonString(pr.name))
+                .append(",\"arrival\":").append(pr.arrivalTime)
+                .append(",\"burst\":").append(pr.burstTime)
+                .append(",\"priority\":").append(pr.priority)
+                .append(",\"waitingTime\":").append(pr.waitingTime)
+                .append(",\"turnaroundTime\":").append(pr.turnaroundTime)
+                .append(",\"responseTime\":").append(pr.responseTime)
+                .append(",\"preemptions\":").append(pr.preemptions);
+            String extraInfo = pr.getExtraInfo();
+            if (!extraInfo.isEmpty()) line.append(",\"extraInfo\":").append(jsonString(extraInfo));
+            if (pr.hasDeadline()) line.append(",\"deadline\":").append(pr.deadline).append(",\"slack\":").append(pr.slack);
+            line.append("}\n");
+            out.append(line);
+        }
+
+        out.write("{\"type\":\"executionOrder\",\"scheduler\":" + scheduler + ",\"order\":[");
+        boolean first = true;
+        for (String name : result.executionOrder) {
+            if (!first) out.write(',');
+            out.write(jsonString(name));
+            first = false;
+        }
+        out.write("]}\n");
+
+        for (CoreResult core : result.coreResults) {
+            out.write("{\"type\":\"core\",\"scheduler\":" + scheduler
+                    + ",\"core\":" + core.core
+                    + ",\"busyTime\":" + core.busyTime
+                    + ",\"switchTime\":" + core.switchTime
+                    + ",\"dispatches\":" + core.dispatches
+                    + ",\"migrationsIn\":" + core.migrationsIn
+                    + ",\"migrationsOut\":" + core.migrationsOut
+                    + ",\"utilization\":" + core.utilization + "}\n");
+        }
+
+        out.write("{\"type\":\"summary\",\"scheduler\":" + scheduler
+                + ",\"processes\":" + result.waitingTimes.count()
+                + ",\"dispatches\":" + result.executionOrder.size()
+                + ",\"averageWaitingTime\":" + result.avgWaitingTime
+                + ",\"averageTurnaroundTime\":" + result.avgTurnaroundTime
+                + ",\"waitingTime\":" + jsonPercentiles(result.waitingTimes)
+                + ",\"turnaroundTime\":" + jsonPercentiles(result.turnaroundTimes)
+                + ",\"responseTime\":" + jsonPercentiles(result.responseTimes)
+                + ",\"contextSwitches\":" + result.metrics.contextSwitches
+                + ",\"switchTime\":" + result.metrics.switchTime
+                + ",\"preemptions\":" + result.metrics.preemptions
+                + ",\"idleTime\":" + result.metrics.idleTime()
+                + ",\"utilization\":" + result.metrics.utilization()
+                + ",\"throughput\":" + result.metrics.throughput()
+                + (result.deadlineProcesses == 0 ? "" : ",\"deadlineProcesses\":" + result.deadlineProcesses
+                        + ",\"deadlineMisses\":" + result.deadlineMisses
+                        + ",\"lateness\":" + jsonPercentiles(result.lateness))
+                + "}\n");
+    }
+
+    private static String jsonPercentiles(LatencyHistogram histogram) {
+        return "{\"p50\":" + histogram.p50() + ",\"p90\":" + histogram.p90() + ",\"p99\":" + histogram.p99()
+                + ",\"p99.9\":" + histogram.p999() + ",\"max\":" + histogram.max() + "}";
+    }
+
+    // Percentiles are p50/p90/p99/p99.9/max, cpu the utilization over all cores, and
+    // utilization min/avg/max over the cores
+    private void printSummary(SchedulerResult result) throws IOException {
+        out.write(String.format("%-46s processes=%d dispatches=%d avgWaiting=%.2f avgTurnaround=%.2f"
+                        + " waiting=%s turnaround=%s response=%s",
+                result.schedulerName, result.waitingTimes.count(), result.executionOrder.size(),
+                result.avgWaitingTime, result.avgTurnaroundTime, percentiles(result.waitingTimes),
+                percentiles(result.turnaroundTimes), percentiles(result.responseTimes)));
+        SchedulerMetrics metrics = result.metrics;
+        out.write(String.format(" switches=%d preemptions=%d idle=%d cpu=%.2f throughput=%.4f",
+                metrics.contextSwitches, metrics.preemptions, metrics.idleTime(), metrics.utilization(),
+                metrics.throughput()));
+        if (result.deadlineProcesses > 0) {
+            out.write(String.format(" deadlines=%d missed=%d lateness=%s", result.deadlineProcesses,
+                    result.deadlineMisses, percentiles(result.lateness)));
+        }
+        if (!result.coreResults.isEmpty()) {
+            long migrations = 0;
+            double min = 1, max = 0, total = 0;
+            for (CoreResult core : result.coreResults) {
+                migrations += core.migrationsIn;
+                min = Math.min(min, core.utilization);
+                max = Math.max(max, core.utilization);
+                total += core.utilization;
+            }
+            out.write(String.format(" cores=%d migrations=%d utilization=%.2f/%.2f/%.2f", result.coreResults.size(),
+                    migrations, min, total / result.coreResults.size(), max));
+        }
+        out.write('\n');
+    }
+
+    private static String percentiles(LatencyHistogram histogram) {
+        return histogram.p50() + "/" + histogram.p90() + "/" + histogram.p99() + "/" + histogram.p999()
+                + "/" + histogram.max();
+    }
+
+    // Quotes the field if it holds a comma, quote or line break
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * Prints several results for the same processes side by side: a summary line per
+     * scheduler, then (if perProcess) one row per process with every scheduler's
+     * waiting / turnaround time. All results must list processes in the same order.
+     */
+    public static void printComparison(List<SchedulerResult> results, boolean perProcess) {
+        int nameWidth = 46;  // Multi-core names are longer
+        for (SchedulerResult result : results) nameWidth = Math.max(nameWidth, result.schedulerName.length());
+        int width = Math.max(nameWidth + 48, 24 + 16 * results.size());
+        System.out.println("\n" + "=".repeat(width));
+        System.out.println("Scheduler Comparison");
+        System.out.println("=".repeat(width));
+
+        String row = "%-" + nameWidth + "s %-15s %-15s %-15s%n";
+        System.out.printf("%n" + row, "Scheduler", "Avg Waiting", "Avg Turnaround", "Dispatches");
+        System.out.println("-".repeat(width));
+        for (SchedulerResult result : results) {
+            System.out.printf("%-" + nameWidth + "s %-15.2f %-15.2f %-15d%n", result.schedulerName,
+                    result.avgWaitingTime, result.avgTurnaroundTime, result.executionOrder.size());
+        }
+
+        if (!perProcess || results.isEmpty()) return;
+
+        System.out.println("\nWaiting / Turnaround Time per Process:");
+        System.out.println("-".repeat(width));
+        System.out.printf("%-10s %-12s", "Process", "Burst");
+        for (SchedulerResult result : results) {
+            System.out.printf(" %-15s", shortName(result.schedulerName));
+        }
+        System.out.println();
+        System.out.println("-".repeat(width));
+
+        List<ProcessResult> first = results.get(0).processResults;
+        for (int i = 0; i < first.size(); i++) {
+            System.out.printf("%-10s %-12d", first.get(i).name, first.get(i).burstTime);
+            for (SchedulerResult result : results) {
+                ProcessResult pr = result.processResults.get(i);
+                System.out.printf(" %-15s", pr.waitingTime + " / " + pr.turnaroundTime);
+            }
+            System.out.println();
+        }
+    }
+
+    // Column header: "Preemptive Shortest Job First (SJF)" -> "SJF", "AG Scheduling" -> "AG",
+    // "Round Robin [4 cores, pull]" -> "Round Robin"
+    private static String shortName(String schedulerName) {
+        int bracket = schedulerName.indexOf(" [");
+        if (bracket >= 0) schedulerName = schedulerName.substring(0, bracket);
+        int open = schedulerName.indexOf('('), close = schedulerName.indexOf(')');
+        if (open >= 0 && close > open && schedulerName.substring(open + 1, close).indexOf(' ') < 0) {
+            return schedulerName.substring(open + 1, close);
+        }
+        String name = (open >= 0 ? schedulerName.substring(0, open) : schedulerName).trim();
+        name = name.replaceFirst("^Preemptive ", "").replaceFirst(" Scheduling$", "");
+        return name.length() > 15 ? name.substring(0, 15) : name;
     }
 }
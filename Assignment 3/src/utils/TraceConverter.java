@@ -0,0 +1,41 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Converts a JSON test case (the TestCases/ format) into a binary TraceFile.
+ * Context switch, RR quantum and aging interval go into the trace header; fields
+ * a test case leaves out (such as a process's deadline) are written as 0.
+ *
+ * Usage: TraceConverter TestCases/test_1.json test_1.trace
+ */
+public class TraceConverter {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: TraceConverter <test case .json> <output .trace>");
+            System.exit(2);
+        }
+        int count = convert(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("Wrote " + count + " processes to " + args[1]);
+    }
+
+    /** Converts one test case and returns the number of processes written. */
+    public static int convert(Path json, Path trace) throws IOException {
+        JsonNode input = new ObjectMapper().readTree(json.toFile()).path("input");
+        JsonNode processes = input.path("processes");
+        if (!processes.isArray()) throw new IOException("No input.processes array in " + json);
+
+        try (TraceFile.Writer writer = new TraceFile.Writer(trace, input.path("contextSwitch").asInt(),
+                input.path("rrQuantum").asInt(), input.path("agingInterval").asInt())) {
+            for (JsonNode p : processes) {
+                writer.add(p.path("name").asText(), p.path("arrival").asInt(), p.path("burst").asInt(),
+                        p.path("priority").asInt(), p.path("quantum").asInt(), p.path("deadline").asInt());
+            }
+        }
+        return processes.size();
+    }
+}
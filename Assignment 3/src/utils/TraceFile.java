@@ -0,0 +1,268 @@
+package utils;
+
+import models.ProcessTable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary trace format, read by memory-mapping the file.
+ *
+ * Layout (little-endian):
+ * <pre>
+ *   header (40 bytes)
+ *     int   magic              "CPUT"
+ *     short version            2
+ *     short record size        24
+ *     int   record count
+ *     int   context switch time, RR quantum, aging interval
+ *     long  dictionary offset
+ *     int   name count
+ *     int   reserved (0)
+ *   records, one per process, in file order
+ *     int   arrival delta      arrival minus the previous record's arrival (the first is from 0)
+ *     int   burst, priority, quantum
+ *     int   deadline           relative to arrival, 0 if none
+ *     int   name ID            index into the dictionary
+ *   dictionary
+ *     name count times: unsigned short length, then that many UTF-8 bytes
+ * </pre>
+ * The dictionary comes last so a trace can be written in one pass without
+ * knowing the names up front. Reading decodes the records straight into a
+ * ProcessTable's columns; no Process object is created. Version 1 traces, whose
+ * 20-byte records have no deadline, are still read.
+ */
+public class TraceFile {
+
+    static final int MAGIC = 0x54555043;  // "CPUT" read little-endian
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 40;
+    static final int RECORD_SIZE = 24;
+    static final int V1_RECORD_SIZE = 20;  // No deadline column
+
+    private final ProcessTable table;
+    private final int contextSwitchTime;
+    private final int rrQuantum;
+    private final int agingInterval;
+
+    private TraceFile(ProcessTable table, int contextSwitchTime, int rrQuantum, int agingInterval) {
+        this.table = table;
+        this.contextSwitchTime = contextSwitchTime;
+        this.rrQuantum = rrQuantum;
+        this.agingInterval = agingInterval;
+    }
+
+    public ProcessTable table() {
+        return table;
+    }
+    public int contextSwitchTime() {
+        return contextSwitchTime;
+    }
+    public int rrQuantum() {
+        return rrQuantum;
+    }
+    public int agingInterval() {
+        return agingInterval;
+    }
+
+    /** True if the file starts with the trace magic number. */
+    public static boolean isTraceFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) > 0) {
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    public static TraceFile read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) throw new IOException("Not a trace file (too short): " + file);
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) throw new IOException("Not a trace file (bad magic): " + file);
+            short version = header.getShort();
+            short recordSize = header.getShort();
+            boolean hasDeadlines = version == VERSION && recordSize == RECORD_SIZE;
+            if (!hasDeadlines && (version != 1 || recordSize != V1_RECORD_SIZE)) {
+                throw new IOException("Unsupported trace version " + version + " / record size " + recordSize);
+            }
+            int count = header.getInt();
+            int contextSwitchTime = header.getInt();
+            int rrQuantum = header.getInt();
+            int agingInterval = header.getInt();
+            long dictionaryOffset = header.getLong();
+            int nameCount = header.getInt();
+            if (count < 0 || nameCount < 0 || dictionaryOffset != HEADER_SIZE + (long) count * recordSize
+                    || dictionaryOffset > fileSize) {
+                throw new IOException("Corrupt trace header: " + file);
+            }
+
+            int[] arrivalTime = new int[count];
+            int[] burstTime = new int[count];
+            int[] priority = new int[count];
+            int[] quantum = new int[count];
+            int[] deadline = null;  // Allocated at the first deadline, so tables without any keep none
+            int[] nameId = new int[count];
+
+            // Map the records in windows that fit a MappedByteBuffer and hold whole records
+            long windowRecords = Integer.MAX_VALUE / recordSize;
+            int arrival = 0;
+            for (int first = 0; first < count; ) {
+                int records = (int) Math.min(windowRecords, count - first);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_SIZE + (long) first * recordSize, (long) records * recordSize);
+                window.order(ByteOrder.LITTLE_ENDIAN);
+                for (int row = first; row < first + records; row++) {
+                    arrival += window.getInt();
+                    arrivalTime[row] = arrival;
+                    burstTime[row] = window.getInt();
+                    priority[row] = window.getInt();
+                    quantum[row] = window.getInt();
+                    if (hasDeadlines) {
+                        int due = window.getInt();
+                        if (due != 0) {
+                            if (deadline == null) deadline = new int[count];
+                            deadline[row] = due;
+                        }
+                    }
+                    nameId[row] = window.getInt();
+                }
+                first += records;
+            }
+
+            long dictionarySize = fileSize - dictionaryOffset;
+            if (dictionarySize > Integer.MAX_VALUE) throw new IOException("Name dictionary too large: " + file);
+            ByteBuffer dictionary = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset, dictionarySize)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            String[] names = new String[nameCount];
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < nameCount; i++) {
+                int length = dictionary.remaining() < 2 ? -1 : Short.toUnsignedInt(dictionary.getShort());
+                if (length < 0 || dictionary.remaining() < length) {
+                    throw new IOException("Corrupt trace (truncated name dictionary): " + file);
+                }
+                if (length > bytes.length) bytes = new byte[length];
+                dictionary.get(bytes, 0, length);
+                names[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+
+            try {
+                return new TraceFile(ProcessTable.ofColumns(arrivalTime, burstTime, priority, quantum, deadline, nameId,
+                        names), contextSwitchTime, rrQuantum, agingInterval);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt trace: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /** Writes a whole table, rows in table order. */
+    public static void write(Path file, ProcessTable table, int contextSwitchTime, int rrQuantum, int agingInterval)
+            throws IOException {
+        try (Writer writer = new Writer(file, contextSwitchTime, rrQuantum, agingInterval)) {
+            for (int row = 0; row < table.size(); row++) {
+                writer.add(table.getName(row), table.getArrivalTime(row), table.getBurstTime(row),
+                        table.getPriority(row), table.getQuantum(row), table.getDeadline(row));
+            }
+        }
+    }
+
+    /**
+     * Writes a trace one process at a time. Only the name dictionary is kept in
+     * memory; the header is filled in on close().
+     */
+    public static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final int contextSwitchTime, rrQuantum, agingInterval;
+        private int count = 0;
+        private int lastArrival = 0;
+
+        public Writer(Path file, int contextSwitchTime, int rrQuantum, int agingInterval) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.contextSwitchTime = contextSwitchTime;
+            this.rrQuantum = rrQuantum;
+            this.agingInterval = agingInterval;
+            channel.position(HEADER_SIZE);
+        }
+
+        public Writer add(String name, int arrival, int burst, int priority, int quantum) throws IOException {
+            return add(name, arrival, burst, priority, quantum, 0);
+        }
+
+        /** A deadline of 0 means none. */
+        public Writer add(String name, int arrival, int burst, int priority, int quantum, int deadline)
+                throws IOException {
+            if (deadline < 0) throw new IllegalArgumentException("Negative deadline for process " + name);
+            if (count == Integer.MAX_VALUE) throw new IOException("Too many records for one trace");
+            Integer id = ids.get(name);
+            if (id == null) {
+                if (name.getBytes(StandardCharsets.UTF_8).length > 0xFFFF) {
+                    throw new IllegalArgumentException("Process name too long: " + name.substring(0, 32) + "...");
+                }
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            if (buffer.remaining() < RECORD_SIZE) flush();
+            buffer.putInt(arrival - lastArrival)  // Wraps around for huge jumps, and wraps back on read
+                  .putInt(burst)
+                  .putInt(priority)
+                  .putInt(quantum)
+                  .putInt(deadline)
+                  .putInt(id);
+            lastArrival = arrival;
+            count++;
+            return this;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                for (String name : names) {
+                    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                    if (buffer.remaining() < 2 + bytes.length) flush();
+                    buffer.putShort((short) bytes.length).put(bytes);
+                }
+                flush();
+
+                buffer.putInt(MAGIC)
+                      .putShort(VERSION)
+                      .putShort((short) RECORD_SIZE)
+                      .putInt(count)
+                      .putInt(contextSwitchTime)
+                      .putInt(rrQuantum)
+                      .putInt(agingInterval)
+                      .putLong(HEADER_SIZE + (long) count * RECORD_SIZE)
+                      .putInt(names.size())
+                      .putInt(0);
+                buffer.flip();
+                long position = 0;
+                while (buffer.hasRemaining()) position += channel.write(buffer, position);
+                buffer.clear();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
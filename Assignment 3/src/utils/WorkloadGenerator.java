@@ -0,0 +1,277 @@
+package utils;
+
+import models.Process;
+import models.ProcessTable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Generates reproducible synthetic process traces from a seed.
+ *
+ * The same seed and settings always give the same trace, whether it is read as an
+ * iterator, built into a ProcessTable or written to a file. Processes are produced
+ * one at a time in arrival order, so the iterator and the file writer never hold
+ * more than one process and can produce traces of any length.
+ *
+ * Example:
+ *   new WorkloadGenerator(7).burstyArrivals(10, 20).paretoBursts(8, 1.5).iterator(10_000_000)
+ */
+public class WorkloadGenerator {
+
+    public enum Arrivals { POISSON, BURSTY }
+    public enum Bursts { EXPONENTIAL, PARETO }
+
+    private final long seed;
+
+    private Arrivals arrivals = Arrivals.POISSON;
+    private double meanGap = 10;       // Mean time between arrivals
+    private double clusterSize = 1;    // Mean number of processes per cluster (bursty arrivals)
+
+    private Bursts bursts = Bursts.EXPONENTIAL;
+    private double meanBurst = 8;
+    private double paretoShape = 1.5;  // Smaller is heavier tailed; must be above 1
+    private int maxBurst = 1_000_000;
+
+    private int minPriority = 1, maxPriority = 10;
+    private int minQuantum = 2, maxQuantum = 8;
+    private double minDeadlineFactor = 0, maxDeadlineFactor = 0;  // 0: no deadlines
+
+    public WorkloadGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /** Arrivals form a Poisson process: exponential gaps with the given mean. */
+    public WorkloadGenerator poissonArrivals(double meanGap) {
+        this.arrivals = Arrivals.POISSON;
+        this.meanGap = positive(meanGap, "meanGap");
+        this.clusterSize = 1;
+        return this;
+    }
+
+    /**
+     * Arrivals come in clusters with a geometric number of processes (mean clusterSize)
+     * that arrive together. Clusters are spaced so the long-run rate is still one
+     * process every meanGap units.
+     */
+    public WorkloadGenerator burstyArrivals(double meanGap, double clusterSize) {
+        this.arrivals = Arrivals.BURSTY;
+        this.meanGap = positive(meanGap, "meanGap");
+        if (clusterSize < 1) throw new IllegalArgumentException("clusterSize must be at least 1");
+        this.clusterSize = clusterSize;
+        return this;
+    }
+
+    /** Burst lengths are exponential with the given mean (at least 1). */
+    public WorkloadGenerator exponentialBursts(double meanBurst) {
+        this.bursts = Bursts.EXPONENTIAL;
+        this.meanBurst = positive(meanBurst, "meanBurst");
+        return this;
+    }
+
+    /** Burst lengths follow a Pareto distribution with the given mean and shape. */
+    public WorkloadGenerator paretoBursts(double meanBurst, double shape) {
+        if (shape <= 1) throw new IllegalArgumentException("Pareto shape must be above 1 for a finite mean");
+        this.bursts = Bursts.PARETO;
+        this.meanBurst = positive(meanBurst, "meanBurst");
+        this.paretoShape = shape;
+        return this;
+    }
+
+    /** Caps every burst length; keeps heavy tails from overflowing the simulation clock. */
+    public WorkloadGenerator maxBurst(int maxBurst) {
+        if (maxBurst < 1) throw new IllegalArgumentException("maxBurst must be at least 1");
+        this.maxBurst = maxBurst;
+        return this;
+    }
+
+    /** Priorities are uniform over [min, max]. */
+    public WorkloadGenerator priorities(int min, int max) {
+        if (min > max) throw new IllegalArgumentException("Empty priority range");
+        this.minPriority = min;
+        this.maxPriority = max;
+        return this;
+    }
+
+    /** AG quantums are uniform over [min, max]; AG never finishes processes with a quantum below 2. */
+    public WorkloadGenerator quantums(int min, int max) {
+        if (min < 2 || min > max) throw new IllegalArgumentException("Quantums need 2 <= min <= max");
+        this.minQuantum = min;
+        this.maxQuantum = max;
+        return this;
+    }
+
+    /**
+     * Gives every process a deadline (relative to its arrival) of its burst times a
+     * factor uniform over [min, max], rounded up. Traces without deadlines draw the
+     * same random numbers as before, so existing seeds still give the same processes.
+     */
+    public WorkloadGenerator deadlines(double minFactor, double maxFactor) {
+        if (!(minFactor >= 1) || maxFactor < minFactor) {
+            throw new IllegalArgumentException("Deadline factors need 1 <= min <= max");
+        }
+        this.minDeadlineFactor = minFactor;
+        this.maxDeadlineFactor = maxFactor;
+        return this;
+    }
+
+    /** Lazily generates {@code count} processes, sorted by arrival time. */
+    public Iterator<Process> iterator(long count) {
+        return new Iterator<>() {
+            private final Stream stream = new Stream();
+            private long produced = 0;
+
+            @Override
+            public boolean hasNext() {
+                return produced < count;
+            }
+
+            @Override
+            public Process next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                stream.advance();
+                produced++;
+                return new Process("P" + produced, stream.arrival, stream.burst, stream.priority, stream.quantum,
+                        stream.deadline);
+            }
+        };
+    }
+
+    /** Generates {@code count} processes straight into a ProcessTable. */
+    public ProcessTable toTable(int count) {
+        ProcessTable.Builder builder = new ProcessTable.Builder(count);
+        Stream stream = new Stream();
+        for (int i = 1; i <= count; i++) {
+            stream.advance();
+            builder.add("P" + i, stream.arrival, stream.burst, stream.priority, stream.quantum, stream.deadline);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes the answers Main asks for, in prompt order: process count, RR quantum,
+     * context switch time, aging interval, then name, arrival, burst and priority of
+     * each process. Pipe the file into Main instead of typing.
+     */
+    public void writeMainInput(Path file, long count, int rrQuantum, int contextSwitchTime, int agingInterval)
+            throws IOException {
+        try (Writer out = writer(file)) {
+            out.write(count + "\n" + rrQuantum + "\n" + contextSwitchTime + "\n" + agingInterval + "\n");
+            writeProcesses(out, count, false);
+        }
+    }
+
+    /** Same as writeMainInput, in the order AGMain asks: process count, then processes with their quantum. */
+    public void writeAGInput(Path file, long count) throws IOException {
+        try (Writer out = writer(file)) {
+            out.write(count + "\n");
+            writeProcesses(out, count, true);
+        }
+    }
+
+    /** Writes {@code count} processes as a binary TraceFile, with the given header values. */
+    public void writeTrace(Path file, int count, int rrQuantum, int contextSwitchTime, int agingInterval)
+            throws IOException {
+        try (TraceFile.Writer out = new TraceFile.Writer(file, contextSwitchTime, rrQuantum, agingInterval)) {
+            Stream stream = new Stream();
+            for (int i = 1; i <= count; i++) {
+                stream.advance();
+                out.add("P" + i, stream.arrival, stream.burst, stream.priority, stream.quantum, stream.deadline);
+            }
+        }
+    }
+
+    private static Writer writer(Path file) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.US_ASCII), 1 << 16);
+    }
+
+    private void writeProcesses(Writer out, long count, boolean includeQuantum) throws IOException {
+        Stream stream = new Stream();
+        StringBuilder line = new StringBuilder(64);
+        for (long i = 1; i <= count; i++) {
+            stream.advance();
+            line.setLength(0);
+            line.append('P').append(i)
+                .append(' ').append(stream.arrival)
+                .append(' ').append(stream.burst)
+                .append(' ').append(stream.priority);
+            if (includeQuantum) line.append(' ').append(stream.quantum);
+            line.append('\n');
+            out.append(line);
+        }
+    }
+
+    /**
+     * The random process behind every output: one SplittableRandom seeded the same
+     * way each time, drawn in the same order for every process.
+     */
+    private class Stream {
+        private final SplittableRandom random = new SplittableRandom(seed);
+        private double clock = 0;
+        private long leftInCluster = 0;
+
+        int arrival, burst, priority, quantum, deadline;
+
+        void advance() {
+            clock += nextGap();
+            if (clock > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Arrival times overflow int; use a smaller meanGap or count");
+            }
+            arrival = (int) clock;
+            burst = nextBurst();
+            priority = minPriority + random.nextInt(maxPriority - minPriority + 1);
+            quantum = minQuantum + random.nextInt(maxQuantum - minQuantum + 1);
+            if (maxDeadlineFactor > 0) {
+                double factor = minDeadlineFactor + random.nextDouble() * (maxDeadlineFactor - minDeadlineFactor);
+                deadline = (int) Math.min(Integer.MAX_VALUE, Math.ceil(burst * factor));
+            }
+        }
+
+        private double nextGap() {
+            if (arrivals == Arrivals.POISSON) {
+                return exponential(meanGap);
+            }
+            // Bursty: the rest of the cluster arrives with the first one
+            if (leftInCluster > 0) {
+                leftInCluster--;
+                return 0;
+            }
+            leftInCluster = geometric(clusterSize) - 1;
+            return exponential(meanGap * clusterSize);
+        }
+
+        private int nextBurst() {
+            double value;
+            if (bursts == Bursts.EXPONENTIAL) {
+                value = exponential(meanBurst);
+            } else {
+                // Scale chosen so the (uncapped) mean is meanBurst
+                double scale = meanBurst * (paretoShape - 1) / paretoShape;
+                value = scale / Math.pow(1 - random.nextDouble(), 1 / paretoShape);
+            }
+            return (int) Math.max(1, Math.min(maxBurst, Math.round(value)));
+        }
+
+        private double exponential(double mean) {
+            return -mean * Math.log(1 - random.nextDouble());
+        }
+
+        // Number of trials up to and including the first success, with the given mean (>= 1)
+        private long geometric(double mean) {
+            if (mean <= 1) return 1;
+            double p = 1 / mean;
+            return 1 + (long) (Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+        }
+    }
+
+    private static double positive(double value, String what) {
+        if (!(value > 0)) throw new IllegalArgumentException(what + " must be positive");
+        return value;
+    }
+}